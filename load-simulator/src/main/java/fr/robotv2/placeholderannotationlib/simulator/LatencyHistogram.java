@@ -0,0 +1,77 @@
+package fr.robotv2.placeholderannotationlib.simulator;
+
+/**
+ * A fixed-size, log-linear latency histogram in nanoseconds. Each power of two is split in
+ * {@value #SUB_BUCKETS} linear buckets, so percentiles are accurate to about 6%.
+ * Recording never allocates. Not thread-safe: keep one per thread and {@link #merge} them.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts[index(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @return the upper bound, in nanoseconds, of the bucket holding the given percentile.
+     */
+    public long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = (long) Math.ceil(total * percentile / 100D);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        final int subBucket = (int) (value >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+        return magnitude * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        final int magnitude = index / SUB_BUCKETS;
+        final int subBucket = index % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return subBucket;
+        }
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (magnitude - 1)) - 1;
+    }
+}
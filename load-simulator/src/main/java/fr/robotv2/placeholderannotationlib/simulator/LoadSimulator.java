@@ -0,0 +1,274 @@
+package fr.robotv2.placeholderannotationlib.simulator;
+
+import fr.robotv2.placeholderannotationlib.api.PlaceholderAnnotationProcessor;
+import org.bukkit.OfflinePlayer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Soak test for {@link PlaceholderAnnotationProcessor}: simulates N players refreshing M placeholders
+ * R times per second across T caller threads, then reports throughput, latency percentiles,
+ * allocation per call, the JVM heap retained over time and the part of it freed by closing the processor.
+ * <p>
+ * Usage: {@code LoadSimulator [--players 1000] [--placeholders 20] [--refresh 2] [--threads 4]
+ * [--duration 60] [--warmup 10] [--db-micros 200] [--sample 5] [--compact-cache] [--no-intern]}
+ */
+public final class LoadSimulator {
+
+    private final Options options;
+    private final PlaceholderAnnotationProcessor processor;
+    private final List<OfflinePlayer> players;
+    private final List<String> params;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<String> timeline = new ArrayList<>();
+
+    private LoadSimulator(Options options) {
+        this.options = options;
+
+        final Logger logger = Logger.getLogger("PALib-Simulator");
+        logger.setLevel(Level.WARNING);
+
+        this.processor = new PlaceholderAnnotationProcessor.Builder()
+                .logger(logger)
+                .compactCache(options.compactCache)
+                .internResults(options.internResults)
+                .build();
+        new SimulatedExpansion(processor, TimeUnit.MICROSECONDS.toNanos(options.databaseMicros));
+
+        this.players = StubPlayers.create(options.players);
+        this.params = SimulatedExpansion.params(options.placeholders);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final Options options = Options.parse(args);
+        System.out.println("Simulating " + options);
+        final LoadSimulator simulator = new LoadSimulator(options);
+        final long retained;
+        try {
+            retained = simulator.run();
+        } finally {
+            simulator.processor.close();
+        }
+        simulator.reportClosed(retained);
+    }
+
+    /**
+     * @return the JVM heap retained once measured.
+     */
+    private long run() throws InterruptedException {
+        if (options.warmupSeconds > 0) {
+            System.out.println("Warming up for " + options.warmupSeconds + "s...");
+            runPhase(options.warmupSeconds, false);
+        }
+
+        final long baseline = retainedHeap();
+        System.out.println("Measuring for " + options.durationSeconds + "s...");
+        final Result result = runPhase(options.durationSeconds, true);
+        return report(result, baseline);
+    }
+
+    private Result runPhase(int seconds, boolean sample) throws InterruptedException {
+        final long start = System.nanoTime();
+        final long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        final long period = TimeUnit.SECONDS.toNanos(1) / options.refreshPerSecond;
+
+        final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        final AtomicLong calls = new AtomicLong();
+        if (sample) {
+            sampler.scheduleAtFixedRate(() -> sample(start, calls.get()), options.sampleSeconds, options.sampleSeconds, TimeUnit.SECONDS);
+        }
+
+        final Worker[] workers = new Worker[options.threads];
+        final CountDownLatch done = new CountDownLatch(options.threads);
+        for (int t = 0; t < options.threads; t++) {
+            final Worker worker = new Worker(t, start, end, period, calls, done);
+            workers[t] = worker;
+            final Thread thread = new Thread(worker, "simulator-caller-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        done.await();
+        // Awaited so no sample is still being added to the timeline once it is printed.
+        sampler.shutdownNow();
+        sampler.awaitTermination(1, TimeUnit.MINUTES);
+
+        final Result result = new Result(System.nanoTime() - start);
+        for (Worker worker : workers) {
+            result.latencies.merge(worker.latencies);
+            result.allocatedBytes += worker.allocatedBytes;
+            result.lateRounds += worker.lateRounds;
+        }
+        return result;
+    }
+
+    private void sample(long start, long calls) {
+        final long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        timeline.add(String.format(Locale.ROOT, "  %5ds  %,15d calls  %,10d KiB JVM heap  %,10d unknown",
+                elapsed, calls, retainedHeap() / 1024, processor.unknownPlaceholderRequests()));
+    }
+
+    private long retainedHeap() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private long report(Result result, long baseline) {
+        final LatencyHistogram latencies = result.latencies;
+        final double seconds = result.elapsedNanos / 1e9;
+
+        System.out.println();
+        System.out.println("== Results ==");
+        System.out.printf(Locale.ROOT, "calls:           %,d in %.1fs%n", latencies.count(), seconds);
+        System.out.printf(Locale.ROOT, "throughput:      %,.0f calls/s%n", latencies.count() / seconds);
+        System.out.printf(Locale.ROOT, "latency p50:     %,.2f us%n", latencies.percentile(50) / 1e3);
+        System.out.printf(Locale.ROOT, "latency p99:     %,.2f us%n", latencies.percentile(99) / 1e3);
+        System.out.printf(Locale.ROOT, "latency p999:    %,.2f us%n", latencies.percentile(99.9) / 1e3);
+        System.out.printf(Locale.ROOT, "latency max:     %,.2f us%n", latencies.max() / 1e3);
+        System.out.printf(Locale.ROOT, "allocated/call:  %,.1f bytes%n", (double) result.allocatedBytes / Math.max(1, latencies.count()));
+        System.out.printf(Locale.ROOT, "late rounds:     %,d%n", result.lateRounds);
+        final long retained = retainedHeap();
+        System.out.printf(Locale.ROOT, "JVM heap:        %,d KiB (%+,d KiB since warmup)%n", retained / 1024, (retained - baseline) / 1024);
+        return retained;
+    }
+
+    private void reportClosed(long retained) {
+        // Closing drops the cached results, so the JVM heap it frees approximates what the processor retained.
+        System.out.printf(Locale.ROOT, "freed on close:  %,d KiB%n", (retained - retainedHeap()) / 1024);
+        System.out.println();
+        System.out.println("== JVM heap over time ==");
+        timeline.forEach(System.out::println);
+    }
+
+    /**
+     * Refreshes every placeholder of its share of the players once per period, and records
+     * the latency and allocations of each call.
+     */
+    private final class Worker implements Runnable {
+
+        private final int index;
+        private final long start;
+        private final long end;
+        private final long period;
+        private final AtomicLong calls;
+        private final CountDownLatch done;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long allocatedBytes;
+        private long lateRounds;
+
+        private Worker(int index, long start, long end, long period, AtomicLong calls, CountDownLatch done) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.period = period;
+            this.calls = calls;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            final long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+            try {
+                for (long round = 0; ; round++) {
+                    final long deadline = start + round * period;
+                    final long now = System.nanoTime();
+                    if (now >= end) {
+                        break;
+                    }
+                    if (deadline > now) {
+                        LockSupport.parkNanos(deadline - now);
+                    } else if (round > 0) {
+                        lateRounds++;
+                    }
+
+                    refresh();
+                }
+            } finally {
+                allocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                done.countDown();
+            }
+        }
+
+        private void refresh() {
+            long count = 0;
+            for (int p = index; p < players.size(); p += options.threads) {
+                final OfflinePlayer player = players.get(p);
+                for (int i = 0; i < params.size(); i++) {
+                    final long before = System.nanoTime();
+                    processor.process(player, params.get(i));
+                    latencies.record(System.nanoTime() - before);
+                    count++;
+                }
+            }
+            calls.addAndGet(count);
+        }
+    }
+
+    private static final class Result {
+
+        private final long elapsedNanos;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long allocatedBytes;
+        private long lateRounds;
+
+        private Result(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    private static final class Options {
+
+        private int players = 1000;
+        private int placeholders = 20;
+        private int refreshPerSecond = 2;
+        private int threads = 4;
+        private int durationSeconds = 60;
+        private int warmupSeconds = 10;
+        private long databaseMicros = 200;
+        private int sampleSeconds = 5;
+        private boolean compactCache = false;
+        private boolean internResults = true;
+
+        private static Options parse(String[] args) {
+            final Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--players" -> options.players = Integer.parseInt(args[++i]);
+                    case "--placeholders" -> options.placeholders = Integer.parseInt(args[++i]);
+                    case "--refresh" -> options.refreshPerSecond = Integer.parseInt(args[++i]);
+                    case "--threads" -> options.threads = Integer.parseInt(args[++i]);
+                    case "--duration" -> options.durationSeconds = Integer.parseInt(args[++i]);
+                    case "--warmup" -> options.warmupSeconds = Integer.parseInt(args[++i]);
+                    case "--db-micros" -> options.databaseMicros = Long.parseLong(args[++i]);
+                    case "--sample" -> options.sampleSeconds = Integer.parseInt(args[++i]);
+                    case "--compact-cache" -> options.compactCache = true;
+                    case "--no-intern" -> options.internResults = false;
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            return options;
+        }
+
+        @Override
+        public String toString() {
+            return players + " players x " + placeholders + " placeholders x " + refreshPerSecond + "/s on "
+                    + threads + " threads (database " + databaseMicros + "us, "
+                    + (compactCache ? "compact" : "default") + " cache"
+                    + (internResults ? "" : ", results not interned") + ")";
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package fr.robotv2.placeholderannotationlib.simulator;
+
+import fr.robotv2.placeholderannotationlib.annotations.Cache;
+import fr.robotv2.placeholderannotationlib.annotations.Depends;
+import fr.robotv2.placeholderannotationlib.annotations.Expansion;
+import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
+import fr.robotv2.placeholderannotationlib.annotations.RequireOnlinePlayer;
+import fr.robotv2.placeholderannotationlib.api.BasePlaceholderExpansion;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderActor;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderAnnotationProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A representative expansion: plain, cached, parameterized, composed and field placeholders.
+ * Cached placeholders simulate a database round trip of a configurable duration. Some return
+ * values unique to each player, others values from a small set shared by many players.
+ */
+@Expansion(identifier = "sim", version = "1.0.0", author = "PALib")
+public class SimulatedExpansion extends BasePlaceholderExpansion {
+
+    public enum Rank {
+        MEMBER, VIP, ADMIN
+    }
+
+    private static final String[] TEMPLATES = {
+            "player_name",
+            "player_balance",
+            "player_group",
+            "player_level",
+            "player_verified",
+            "stat_%d",
+            "stat_kdr",
+            "math_add_%d_7",
+            "rank_vip",
+            "server_motd",
+            "server_online",
+            "direct_hello",
+            "unknown_%d",
+    };
+
+    private static final String[] GROUPS = {"Member", "Veteran", "VIP", "Moderator", "Admin"};
+
+    private static volatile long databaseCostNanos;
+
+    @Placeholder({"server", "motd"})
+    public final String motd = "Welcome to the network!";
+
+    @Placeholder({"server", "online"})
+    public volatile int online = 0;
+
+    public SimulatedExpansion(PlaceholderAnnotationProcessor processor, long databaseCostNanos) {
+        super(processor);
+        SimulatedExpansion.databaseCostNanos = databaseCostNanos;
+        processor.registerDirect("direct_hello", actor -> "Hello!");
+    }
+
+    /**
+     * @return {@code count} placeholder params covering every kind of placeholder of this expansion.
+     */
+    public static List<String> params(int count) {
+        final List<String> params = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String template = TEMPLATES[i % TEMPLATES.length];
+            params.add(template.contains("%d") ? String.format(template, i / TEMPLATES.length) : template);
+        }
+        return params;
+    }
+
+    @Placeholder({"player", "name"})
+    public String name(PlaceholderActor actor) {
+        return actor.getPlayer().getName();
+    }
+
+    @Placeholder(value = {"player", "balance"}, format = "#,##0.00")
+    @Cache(value = 5, unit = TimeUnit.SECONDS)
+    @RequireOnlinePlayer
+    public double balance(PlaceholderActor actor) {
+        database();
+        return (actor.getPlayer().getUniqueId().getLeastSignificantBits() % 100_000) * 1.37;
+    }
+
+    @Placeholder({"player", "group"})
+    @Cache(value = 5, unit = TimeUnit.SECONDS)
+    public String group(PlaceholderActor actor) {
+        database();
+        // Read back from a database, so never the same instance twice.
+        return new String(GROUPS[(int) Math.floorMod(actor.getPlayer().getUniqueId().getLeastSignificantBits(), GROUPS.length)]);
+    }
+
+    @Placeholder({"player", "level"})
+    @Cache(value = 5, unit = TimeUnit.SECONDS)
+    public String level(PlaceholderActor actor) {
+        database();
+        return Long.toString(Math.floorMod(actor.getPlayer().getUniqueId().getLeastSignificantBits(), 100L));
+    }
+
+    @Placeholder({"player", "verified"})
+    @Cache(value = 5, unit = TimeUnit.SECONDS)
+    public String verified(PlaceholderActor actor) {
+        database();
+        return new String(actor.getPlayer().getUniqueId().getLeastSignificantBits() % 3 == 0 ? "No" : "Yes");
+    }
+
+    @Placeholder({"stat"})
+    @Cache(value = 1, unit = TimeUnit.SECONDS)
+    public int stat(PlaceholderActor actor, int index) {
+        database();
+        return (int) (actor.getPlayer().getUniqueId().getLeastSignificantBits() * 31 + index) & 0xFFFF;
+    }
+
+    @Placeholder(value = {"stat", "kdr"}, format = "0.00")
+    public double kdr(@Depends({"stat", "0"}) int kills, @Depends({"stat", "1"}) int deaths) {
+        return deaths == 0 ? kills : (double) kills / deaths;
+    }
+
+    @Placeholder({"math", "add"})
+    public int add(int a, int b) {
+        return a + b;
+    }
+
+    @Placeholder({"rank"})
+    public String rank(PlaceholderActor actor, Rank rank) {
+        return rank.name();
+    }
+
+    private static void database() {
+        final long cost = databaseCostNanos;
+        if (cost > 0) {
+            LockSupport.parkNanos(cost);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package fr.robotv2.placeholderannotationlib.simulator;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lightweight online players for the simulator. Only the identity methods the processor
+ * relies on are answered; every other method returns the default value of its type.
+ */
+public final class StubPlayers {
+
+    private StubPlayers() {
+    }
+
+    public static List<OfflinePlayer> create(int count) {
+        final List<OfflinePlayer> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(create(new UUID(0x5EED, i), "Player" + i));
+        }
+        return players;
+    }
+
+    public static Player create(UUID uuid, String name) {
+        return (Player) Proxy.newProxyInstance(StubPlayers.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                case "getDisplayName":
+                    return name;
+                case "isOnline":
+                    return true;
+                case "getPlayer":
+                    return proxy;
+                case "hashCode":
+                    return uuid.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StubPlayer{" + name + "}";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0F;
+        if (type == double.class) return 0D;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+}
@@ -13,4 +13,27 @@ public @interface Cache {
     long value();
 
     TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Whether the result is the same for every player, such as a leaderboard or a player count.
+     * Global results are cached once for everyone, and even when the request has no player.
+     */
+    boolean global() default false;
+
+    /**
+     * Adapts the time to live to how often the result actually changes. Starting from {@link #value()},
+     * it grows by half each time a recomputation returns the same result, and halves each time the
+     * result changed, within {@link #min()} and {@link #max()}.
+     */
+    boolean adaptive() default false;
+
+    /**
+     * The shortest adaptive time to live, in {@link #unit()}. Defaults to a quarter of {@link #value()}.
+     */
+    long min() default 0;
+
+    /**
+     * The longest adaptive time to live, in {@link #unit()}. Defaults to four times {@link #value()}.
+     */
+    long max() default 0;
 }
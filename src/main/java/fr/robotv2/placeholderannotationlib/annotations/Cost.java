@@ -0,0 +1,20 @@
+package fr.robotv2.placeholderannotationlib.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the cost of a {@link Cache}d placeholder. When the processor is built with a tick budget,
+ * expired results of non-{@link CostClass#CHEAP cheap} placeholders keep being served while their
+ * recomputation waits for a tick with budget left, instead of running on the requesting thread.
+ * <p>
+ * Results that were never computed are still computed on the requesting thread, as there is nothing to serve meanwhile.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cost {
+
+    CostClass value();
+}
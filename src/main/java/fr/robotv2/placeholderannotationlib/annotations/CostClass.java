@@ -0,0 +1,22 @@
+package fr.robotv2.placeholderannotationlib.annotations;
+
+/**
+ * How expensive a placeholder is to compute, declared through {@link Cost}.
+ */
+public enum CostClass {
+
+    /**
+     * Computed on the requesting thread, like any placeholder without {@link Cost}.
+     */
+    CHEAP,
+
+    /**
+     * Recomputed within the per-tick budget, before expensive placeholders.
+     */
+    MODERATE,
+
+    /**
+     * Recomputed within the per-tick budget, once moderate placeholders are done.
+     */
+    EXPENSIVE
+}
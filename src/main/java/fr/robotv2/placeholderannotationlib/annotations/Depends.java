@@ -0,0 +1,18 @@
+package fr.robotv2.placeholderannotationlib.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the value of another placeholder into a method parameter instead of reading it
+ * from the placeholder arguments. The parts are joined with the processor separator, and may
+ * include arguments for the targeted placeholder.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Depends {
+
+    String[] value();
+}
@@ -10,4 +10,14 @@ import java.lang.annotation.Target;
 public @interface Placeholder {
 
     String[] value() default {};
+
+    /**
+     * {@link java.text.DecimalFormat} pattern applied to numeric results, e.g. {@code "#,##0.00"}.
+     */
+    String format() default "";
+
+    /**
+     * Abbreviates large numeric results with a k/M/B/T suffix, e.g. {@code 1234} becomes {@code 1.2k}.
+     */
+    boolean compact() default false;
 }
@@ -0,0 +1,38 @@
+package fr.robotv2.placeholderannotationlib.api;
+
+import java.util.Map;
+
+/**
+ * A {@link ValueResolver} over a finite set of case-insensitive keys, such as rank or kit names.
+ * <p>
+ * The processor turns the declared keys into a lookup table when the resolver is registered,
+ * so resolving a parameter never allocates and unknown keys simply resolve to {@code null}.
+ * The table is a snapshot of {@link #values()}: keys added or removed later are only seen after
+ * {@link PlaceholderAnnotationProcessor#refreshKeyedValueResolvers()}.
+ */
+public interface KeyedValueResolver<T> extends ValueResolver<T> {
+
+    Map<String, ? extends T> values();
+
+    /**
+     * Reads through {@link #values()}, ignoring case. The processor does not call it.
+     */
+    @Override
+    default T resolve(PlaceholderActor actor, String param) {
+        final T exact = values().get(param);
+        if (exact != null) {
+            return exact;
+        }
+
+        for (Map.Entry<String, ? extends T> entry : values().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(param)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    static <T> KeyedValueResolver<T> of(Map<String, ? extends T> values) {
+        return () -> values;
+    }
+}
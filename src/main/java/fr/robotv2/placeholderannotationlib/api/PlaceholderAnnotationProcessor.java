@@ -1,13 +1,26 @@
 package fr.robotv2.placeholderannotationlib.api;
 
 import fr.robotv2.placeholderannotationlib.impl.PlaceholderAnnotationProcessorImpl;
+import fr.robotv2.placeholderannotationlib.util.CacheSystem;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import fr.robotv2.placeholderannotationlib.util.RecomputeScheduler;
+import fr.robotv2.placeholderannotationlib.util.ResultInterner;
 import org.bukkit.OfflinePlayer;
-
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.Set;
 
-public interface PlaceholderAnnotationProcessor {
+public interface PlaceholderAnnotationProcessor extends AutoCloseable {
 
     String separator();
 
@@ -15,21 +28,128 @@ public interface PlaceholderAnnotationProcessor {
 
     String process(OfflinePlayer player, String params);
 
+    /**
+     * Processes several placeholders for the same player at once. Placeholders injected through
+     * {@link fr.robotv2.placeholderannotationlib.annotations.Depends} are computed only once for the whole batch.
+     */
+    Map<String, String> processAll(OfflinePlayer player, Collection<String> params);
+
     <T> void registerValueResolver(Class<? extends T> tClass, ValueResolver<? extends T> resolver);
 
+    /**
+     * Rebuilds the lookup tables of the registered {@link KeyedValueResolver}s from their current
+     * {@link KeyedValueResolver#values()}, such as after kits were reloaded.
+     */
+    void refreshKeyedValueResolvers();
+
     void registerExpansion(BasePlaceholderExpansion expansion);
 
+    /**
+     * Unregisters the placeholders of an expansion, drops their cached results and queued recomputations,
+     * and releases every reference this processor held to the expansion, so it can be registered again
+     * after a reload without leaking the previous instance.
+     *
+     * @return whether the expansion was registered.
+     */
+    boolean unregisterExpansion(BasePlaceholderExpansion expansion);
+
     void registerDirect(String params, Function<PlaceholderActor, String> function);
 
     void registerDirect(String params, Function<PlaceholderActor, String> function, boolean requiresOnlinePlayer);
 
+    /**
+     * Registers a placeholder whose value is published by the plugin when its data changes, for data
+     * that changes rarely but is read constantly such as a faction name or a rank.
+     *
+     * @return the slot to publish the values to.
+     */
+    PublishedPlaceholder registerPublished(String params);
+
     Set<String> registeredPlaceholders();
 
+    /**
+     * Subscribes to the value of a placeholder for a player. Changes are polled through
+     * {@link PlaceholderSubscription#refresh()} or {@link #refreshSubscriptions()}.
+     */
+    PlaceholderSubscription subscribe(OfflinePlayer player, String params);
+
+    /**
+     * Subscribes to the value of a placeholder for a player. The listener is called, on the refreshing
+     * thread, with every value that differs from the previous one.
+     */
+    PlaceholderSubscription subscribe(OfflinePlayer player, String params, Consumer<String> listener);
+
+    /**
+     * Refreshes every open subscription.
+     *
+     * @return the subscriptions whose value changed.
+     */
+    List<PlaceholderSubscription> refreshSubscriptions();
+
+    /**
+     * @return how many requests did not match any registered placeholder since this processor was created.
+     * A steadily growing count usually points to a misconfigured placeholder somewhere.
+     */
+    long unknownPlaceholderRequests();
+
+    /**
+     * @return the time to live currently given to the results of each cached method placeholder, by id.
+     * Useful to tune {@link fr.robotv2.placeholderannotationlib.annotations.Cache#adaptive() adaptive} caches.
+     */
+    Map<String, Duration> cacheTtls();
+
+    /**
+     * Runs the recomputations of {@link fr.robotv2.placeholderannotationlib.annotations.Cost expensive}
+     * placeholders that fit in the tick budget. Called every tick once the processor is built with
+     * {@link Builder#plugin(Plugin)}; call it yourself otherwise.
+     *
+     * @return the number of recomputations run, always 0 without a tick budget.
+     */
+    int tick();
+
+    /**
+     * @return the number of expensive recomputations waiting for a tick. A backlog that keeps growing
+     * means the tick budget is too small for the load.
+     */
+    int recomputeBacklog();
+
+    /**
+     * Writes the cached results of this processor's placeholders, with their expiry, to the given file.
+     * Results of other processors sharing the same cache backend are left out.
+     * Typically called when the plugin is disabled.
+     *
+     * @return the number of entries written.
+     */
+    int saveCache(Path file) throws IOException;
+
+    /**
+     * Restores the cached results of a file written by {@link #saveCache(Path)}, skipping
+     * the ones that expired in the meantime. Typically called when the plugin is enabled.
+     *
+     * @return the number of entries restored.
+     */
+    int loadCache(Path file) throws IOException;
+
+    /**
+     * Unregisters every placeholder as {@link #unregisterExpansion(BasePlaceholderExpansion)} does, closes
+     * every subscription, and stops listening to the server and ticking. Sends the pending writes of a
+     * {@link fr.robotv2.placeholderannotationlib.util.TieredCacheBackend}. Typically called when the plugin
+     * is disabled, after {@link #saveCache(Path)}.
+     */
+    @Override
+    void close();
+
     class Builder {
 
         private String separator = "_";
         private Logger logger = null;
         private boolean debug = false;
+        private boolean compactCache = false;
+        private PlaceholderCacheBackend cacheBackend = null;
+        private long tickBudgetNanos = 0;
+        private boolean flightRecorder = false;
+        private boolean internResults = true;
+        private Plugin plugin = null;
 
         public Builder separator(String sep) {
             this.separator = sep;
@@ -46,12 +166,83 @@ public interface PlaceholderAnnotationProcessor {
             return this;
         }
 
+        /**
+         * The plugin using this processor. Lets the processor keep its player name index up to date
+         * on join and quit, so name arguments never need a blocking profile lookup.
+         */
+        public Builder plugin(Plugin plugin) {
+            this.plugin = plugin;
+            return this;
+        }
+
+        /**
+         * Stores {@link fr.robotv2.placeholderannotationlib.annotations.Cache}d results in a
+         * {@link CompactCacheSystem} owned by this processor, which trades a small decoding cost
+         * on hit for a much smaller heap footprint with many players.
+         */
+        public Builder compactCache(boolean compactCache) {
+            this.compactCache = compactCache;
+            return this;
+        }
+
+        /**
+         * Stores {@link fr.robotv2.placeholderannotationlib.annotations.Cache}d results in the given backend,
+         * for instance a {@link fr.robotv2.placeholderannotationlib.util.TieredCacheBackend} sharing them
+         * across a network. Takes precedence over {@link #compactCache(boolean)}.
+         */
+        public Builder cacheBackend(PlaceholderCacheBackend cacheBackend) {
+            this.cacheBackend = cacheBackend;
+            return this;
+        }
+
+        /**
+         * Spreads the recomputation of {@link fr.robotv2.placeholderannotationlib.annotations.Cost expensive}
+         * placeholders across ticks, running at most about this much of them per tick and serving their
+         * previous results meanwhile.
+         */
+        public Builder tickBudget(long budget, TimeUnit unit) {
+            this.tickBudgetNanos = unit.toNanos(budget);
+            return this;
+        }
+
+        /**
+         * Emits Java Flight Recorder events for routing, cache lookups, argument resolution and
+         * method invocations, under the "PlaceholderAnnotationLib" category. Events only cost
+         * something while a recording enables them.
+         */
+        public Builder flightRecorder(boolean flightRecorder) {
+            this.flightRecorder = flightRecorder;
+            return this;
+        }
+
+        /**
+         * Makes identical cached results share a single string instead of one per player, through
+         * a bounded {@link ResultInterner}. Enabled by default. Skipped with a {@link CompactCacheSystem},
+         * which keeps results as bytes and decodes a new string on every hit.
+         */
+        public Builder internResults(boolean internResults) {
+            this.internResults = internResults;
+            return this;
+        }
+
         public PlaceholderAnnotationProcessor build() {
             if(logger == null) {
                 logger = Logger.getLogger("PALib");
             }
 
-            return new PlaceholderAnnotationProcessorImpl(separator, logger, debug);
+            if (cacheBackend == null) {
+                cacheBackend = compactCache ? new CompactCacheSystem() : CacheSystem.INSTANCE;
+            }
+
+            final RecomputeScheduler scheduler = tickBudgetNanos > 0 ? new RecomputeScheduler(tickBudgetNanos, TimeUnit.NANOSECONDS, logger) : null;
+            final ResultInterner interner = internResults && !(cacheBackend instanceof CompactCacheSystem)
+                    ? new ResultInterner(ResultInterner.DEFAULT_CAPACITY)
+                    : null;
+            final PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl(separator, logger, debug, cacheBackend, flightRecorder, scheduler, interner);
+            if (plugin != null) {
+                processor.bind(plugin);
+            }
+            return processor;
         }
     }
 }
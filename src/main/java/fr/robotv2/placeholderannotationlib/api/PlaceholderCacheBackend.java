@@ -0,0 +1,47 @@
+package fr.robotv2.placeholderannotationlib.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Storage for the results of {@link fr.robotv2.placeholderannotationlib.annotations.Cache}d placeholders,
+ * selected through {@link PlaceholderAnnotationProcessor.Builder#cacheBackend(PlaceholderCacheBackend)}.
+ * <p>
+ * Implementations must be thread-safe: placeholders are requested from any thread.
+ */
+public interface PlaceholderCacheBackend {
+
+    /**
+     * The owner of the results of {@link fr.robotv2.placeholderannotationlib.annotations.Cache#global() global}
+     * placeholders, which are shared by every player.
+     */
+    UUID GLOBAL = new UUID(0L, 0L);
+
+    @Nullable
+    String getCache(UUID uuid, String placeholder);
+
+    void cache(UUID uuid, String placeholder, String result, long duration, TimeUnit unit);
+
+    /**
+     * Visits every entry that has not expired yet.
+     */
+    void forEachEntry(EntryVisitor visitor);
+
+    /**
+     * Removes the entries of every player whose placeholder key matches, such as the results
+     * of an unregistered expansion.
+     */
+    void invalidate(Predicate<String> placeholder);
+
+    @FunctionalInterface
+    interface EntryVisitor {
+
+        /**
+         * @param expiresAt the expiry of the entry, in milliseconds since the epoch.
+         */
+        void visit(UUID uuid, String placeholder, String result, long expiresAt);
+    }
+}
@@ -0,0 +1,43 @@
+package fr.robotv2.placeholderannotationlib.api;
+
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Interest of a consumer, such as a scoreboard, in the value of one placeholder for one player.
+ * Obtained through {@link PlaceholderAnnotationProcessor#subscribe(OfflinePlayer, String)}.
+ * <p>
+ * A subscription only reports a value when it differs from the last one it delivered, so
+ * consumers can skip re-rendering and re-sending everything that did not change. The first
+ * refresh always delivers.
+ */
+public interface PlaceholderSubscription extends AutoCloseable {
+
+    @Nullable
+    OfflinePlayer player();
+
+    String params();
+
+    /**
+     * Evaluates the placeholder, and delivers its value to the listener of the subscription
+     * if it changed since the last delivery.
+     *
+     * @return whether the value changed.
+     */
+    boolean refresh();
+
+    /**
+     * @return the last value delivered.
+     */
+    @Nullable
+    String value();
+
+    boolean isClosed();
+
+    /**
+     * Stops this subscription: it is no longer refreshed by {@link PlaceholderAnnotationProcessor#refreshSubscriptions()}.
+     * Subscriptions of a player are closed when the player quits.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,35 @@
+package fr.robotv2.placeholderannotationlib.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A placeholder whose value is pushed by the plugin when its data changes, instead of being
+ * computed on every request. Obtained through {@link PlaceholderAnnotationProcessor#registerPublished(String)}.
+ * <p>
+ * A value published for a player takes precedence over the global one. Requests are served straight
+ * from the last published value: no method is invoked, no argument is parsed and no cache is looked up.
+ * Every method is thread-safe.
+ */
+public interface PublishedPlaceholder {
+
+    /**
+     * Publishes the value served to every player without a value of their own.
+     * {@code null} withdraws it.
+     */
+    void publish(@Nullable String value);
+
+    /**
+     * Publishes the value served to the given player. {@code null} withdraws it, falling back
+     * to the global value. It is withdrawn when the player leaves, once the processor is bound to the plugin.
+     */
+    void publish(UUID player, @Nullable String value);
+
+    /**
+     * @return the value currently served to the given player, or to players without a value
+     * of their own when {@code player} is {@code null}.
+     */
+    @Nullable
+    String get(@Nullable UUID player);
+}
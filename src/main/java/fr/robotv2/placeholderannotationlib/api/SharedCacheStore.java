@@ -0,0 +1,43 @@
+package fr.robotv2.placeholderannotationlib.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A key-value store shared by every server of a network, such as Redis, used as the second
+ * level of a {@link fr.robotv2.placeholderannotationlib.util.TieredCacheBackend}.
+ * <p>
+ * Keys and values are opaque binary blobs encoded by the tiered backend. Stores only have to
+ * keep each value until its time to live elapses. A store shared by several plugins should
+ * prefix the keys of each one, as two expansions may use the same placeholder ids.
+ */
+public interface SharedCacheStore {
+
+    /**
+     * Never called on a thread that must not wait for the store, by default the server's main thread.
+     *
+     * @return the value stored under the key, or {@code null} if there is none or it expired.
+     */
+    @Nullable
+    byte[] get(byte[] key);
+
+    /**
+     * Stores a batch of values, typically in a single round trip. This is called on the thread that
+     * computed the last value of the batch, or on the cache expiry thread once the batch is due, so
+     * remote stores should hand the batch to an I/O thread rather than block.
+     */
+    void putAll(List<Write> writes);
+
+    /**
+     * Removes the values whose key matches, such as those of an unregistered expansion, so other
+     * servers do not copy them back. Remote stores would typically scan the keys of this plugin.
+     * Does nothing by default, values then expire on their own.
+     */
+    default void invalidate(Predicate<byte[]> keys) {
+    }
+
+    record Write(byte[] key, byte[] value, long timeToLiveMillis) {
+    }
+}
@@ -4,20 +4,37 @@ import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
 import fr.robotv2.placeholderannotationlib.annotations.RequireOnlinePlayer;
 import fr.robotv2.placeholderannotationlib.api.BasePlaceholder;
 import fr.robotv2.placeholderannotationlib.api.BasePlaceholderExpansion;
+import fr.robotv2.placeholderannotationlib.util.ResultFormatter;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.UUID;
 
 public class FieldBasePlaceholderImpl implements BasePlaceholder {
 
     private final BasePlaceholderExpansion expansion;
     private final Field field;
+    private final Class<?> type;
+    private final MethodHandle getter;
     private final Placeholder placeholder;
+    private final ResultFormatter formatter;
     private final boolean isDefault;
     private final boolean requiresOnline;
 
+    // Whether a rendered string can be reused for as long as the field holds the same value.
+    private final boolean reusable;
+    private final boolean constant;
+    private volatile Rendered rendered;
+
     public FieldBasePlaceholderImpl(
             @NotNull BasePlaceholderExpansion expansion,
             @NotNull Field field,
@@ -26,9 +43,16 @@ public class FieldBasePlaceholderImpl implements BasePlaceholder {
     {
         this.expansion = expansion;
         this.field = field;
+        this.type = field.getType();
+        this.getter = createGetter(field);
         this.placeholder = placeholder;
+        this.formatter = ResultFormatter.of(placeholder);
         this.isDefault = isDefault;
         this.requiresOnline = field.isAnnotationPresent(RequireOnlinePlayer.class);
+        this.reusable = isImmutable(type);
+        // Expansions register themselves from their super constructor, before their own field
+        // initializers ran, so final fields are rendered on the first request instead.
+        this.constant = reusable && Modifier.isFinal(field.getModifiers());
     }
 
     @Override
@@ -48,11 +72,129 @@ public class FieldBasePlaceholderImpl implements BasePlaceholder {
 
     @Override
     public String process(OfflinePlayer player, String[] params) {
+        if (constant) {
+            final Rendered current = rendered;
+            if (current != null) {
+                return current.text;
+            }
+        }
+
+        if (type.isPrimitive()) {
+            return processPrimitive();
+        }
+
+        final Object value = readObject();
+        if (!reusable) {
+            return render(value);
+        }
+
+        final Rendered current = rendered;
+        if (current != null && current.value == value) {
+            return current.text;
+        }
+
+        final String text = render(value);
+        rendered = new Rendered(value, 0L, text);
+        return text;
+    }
+
+    private String processPrimitive() {
+        final long bits = readBits();
+        final Rendered current = rendered;
+        if (current != null && current.bits == bits) {
+            return current.text;
+        }
+
+        final String text = render(fromBits(bits));
+        rendered = new Rendered(null, bits, text);
+        return text;
+    }
+
+    private String render(Object value) {
+        return value != null ? formatter.format(value) : String.valueOf(value);
+    }
+
+    private Object readObject() {
         try {
-            final Object value = field.get(expansion);
-            return value instanceof String ? (String) value : String.valueOf(value);
+            return (Object) getter.invokeExact((Object) expansion);
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    /**
+     * Reads a primitive field without boxing it, packing its value into a long.
+     */
+    private long readBits() {
+        try {
+            final Object target = expansion;
+            if (type == int.class) return (int) getter.invokeExact(target);
+            if (type == long.class) return (long) getter.invokeExact(target);
+            if (type == double.class) return Double.doubleToRawLongBits((double) getter.invokeExact(target));
+            if (type == float.class) return Float.floatToRawIntBits((float) getter.invokeExact(target));
+            if (type == boolean.class) return (boolean) getter.invokeExact(target) ? 1L : 0L;
+            if (type == short.class) return (short) getter.invokeExact(target);
+            if (type == byte.class) return (byte) getter.invokeExact(target);
+            return (char) getter.invokeExact(target);
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    private Object fromBits(long bits) {
+        if (type == int.class) return (int) bits;
+        if (type == long.class) return bits;
+        if (type == double.class) return Double.longBitsToDouble(bits);
+        if (type == float.class) return Float.intBitsToFloat((int) bits);
+        if (type == boolean.class) return bits != 0L;
+        if (type == short.class) return (short) bits;
+        if (type == byte.class) return (byte) bits;
+        return (char) bits;
+    }
+
+    /**
+     * Builds a {@code (Object) -> T} getter from the field's {@link VarHandle}, where {@code T} is
+     * the field type for primitives and {@code Object} otherwise, so static and instance fields
+     * are read the same way.
+     */
+    private static MethodHandle createGetter(Field field) {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            final VarHandle handle = lookup.unreflectVarHandle(field);
+            MethodHandle getter = handle.toMethodHandle(VarHandle.AccessMode.GET);
+
+            if (Modifier.isStatic(field.getModifiers())) {
+                getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            }
+
+            final Class<?> returnType = field.getType().isPrimitive() ? field.getType() : Object.class;
+            return getter.asType(MethodType.methodType(returnType, Object.class));
         } catch (IllegalAccessException exception) {
             throw new RuntimeException(exception);
         }
     }
+
+    /**
+     * Only values that cannot change without the field being reassigned can have their
+     * rendered string reused. Other objects (collections, atomics...) are rendered every time.
+     */
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive()
+                || type.isEnum()
+                || type == String.class
+                || type == Integer.class
+                || type == Long.class
+                || type == Double.class
+                || type == Float.class
+                || type == Boolean.class
+                || type == Short.class
+                || type == Byte.class
+                || type == Character.class
+                || type == BigDecimal.class
+                || type == BigInteger.class
+                || type == UUID.class;
+    }
+
+    private record Rendered(Object value, long bits, String text) {
+    }
 }
@@ -1,33 +1,69 @@
 package fr.robotv2.placeholderannotationlib.impl;
 
 import fr.robotv2.placeholderannotationlib.annotations.Cache;
+import fr.robotv2.placeholderannotationlib.annotations.Cost;
+import fr.robotv2.placeholderannotationlib.annotations.CostClass;
+import fr.robotv2.placeholderannotationlib.annotations.Depends;
 import fr.robotv2.placeholderannotationlib.annotations.Optional;
 import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
 import fr.robotv2.placeholderannotationlib.annotations.RequireOnlinePlayer;
 import fr.robotv2.placeholderannotationlib.api.BasePlaceholder;
 import fr.robotv2.placeholderannotationlib.api.BasePlaceholderExpansion;
 import fr.robotv2.placeholderannotationlib.api.PlaceholderActor;
-import fr.robotv2.placeholderannotationlib.util.CacheSystem;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderCacheBackend;
+import fr.robotv2.placeholderannotationlib.jfr.PlaceholderArgumentsEvent;
+import fr.robotv2.placeholderannotationlib.jfr.PlaceholderCacheEvent;
+import fr.robotv2.placeholderannotationlib.jfr.PlaceholderInvocationEvent;
+import fr.robotv2.placeholderannotationlib.util.AdaptiveTtl;
+import fr.robotv2.placeholderannotationlib.util.ResultFormatter;
+import fr.robotv2.placeholderannotationlib.util.SingleFlight;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 
 public class MethodBasePlaceholderImpl implements BasePlaceholder {
 
+    private static final int MAX_LAST_RESULTS = 8192;
+
     private final PlaceholderAnnotationProcessorImpl processor;
     private final BasePlaceholderExpansion expansion;
     private final Method method;
     private final Placeholder placeholder;
+    private final String id;
     private final Cache cacheAnnotation;
+    private final ResultFormatter formatter;
+    private final SingleFlight<FlightKey, String> flights = new SingleFlight<>();
+    private final CostClass cost;
+    private final boolean deferred;
+    private final AdaptiveTtl adaptiveTtl;
+    // Last results of deferred placeholders, served stale until recomputed.
+    private final PlayerResults<String> lastResults = new PlayerResults<>();
+    // Hashes of the last results of adaptive placeholders, enough to tell whether a result changed.
+    private final PlayerResults<Integer> resultHashes = new PlayerResults<>();
+    // Keys with a queued recomputation, removed once it ran or was cancelled.
+    private final Set<FlightKey> scheduled = ConcurrentHashMap.newKeySet();
+    private final String[] dependencies;
+    private final boolean hasDependencies;
     private final boolean isDefault;
     private final boolean requiresOnline;
 
@@ -41,7 +77,18 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
         this.expansion = expansion;
         this.method = method;
         this.placeholder = placeholder;
+        this.id = (placeholder != null && placeholder.value().length > 0)
+                ? String.join(processor.separator(), placeholder.value())
+                : method.getName();
         this.cacheAnnotation = method.getAnnotation(Cache.class);
+        this.formatter = ResultFormatter.of(placeholder);
+        Cost costAnnotation = method.getAnnotation(Cost.class);
+        this.cost = costAnnotation != null ? costAnnotation.value() : CostClass.CHEAP;
+        this.deferred = cacheAnnotation != null && cost != CostClass.CHEAP && processor.scheduler() != null;
+        this.adaptiveTtl = cacheAnnotation != null && cacheAnnotation.adaptive() ? createAdaptiveTtl(cacheAnnotation) : null;
+        this.dependencies = findDependencies(method, processor.separator());
+        this.hasDependencies = Arrays.stream(dependencies).anyMatch(Objects::nonNull);
+        prepareEnumLookups();
         this.isDefault = isDefault;
         this.requiresOnline = method.isAnnotationPresent(RequireOnlinePlayer.class);
     }
@@ -62,38 +109,179 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
         return isDefault;
     }
 
+    /**
+     * @return the time to live currently given to the results of this placeholder, which varies
+     * for {@link Cache#adaptive() adaptive} ones, or {@code null} if they are not cached.
+     */
+    @Nullable
+    public Duration getCacheTtl() {
+        if (cacheAnnotation == null) {
+            return null;
+        }
+        return adaptiveTtl != null
+                ? Duration.ofNanos(adaptiveTtl.nanos())
+                : Duration.ofNanos(cacheAnnotation.unit().toNanos(cacheAnnotation.value()));
+    }
+
+    /**
+     * @return the ids of the placeholders injected into this method through {@link Depends}.
+     */
+    public List<String> getDependencies() {
+        if (!hasDependencies) {
+            return Collections.emptyList();
+        }
+
+        final List<String> ids = new ArrayList<>();
+        for (String dependency : dependencies) {
+            if (dependency != null) {
+                ids.add(dependency);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return whether the key is one this placeholder caches its results under.
+     */
+    public boolean ownsCacheKey(String cacheKey) {
+        return cacheKey.length() > id.length() && cacheKey.charAt(id.length()) == ':' && cacheKey.startsWith(id);
+    }
+
+    /**
+     * Drops the results kept to be served stale, once this placeholder is unregistered.
+     */
+    public void release() {
+        lastResults.clear();
+        resultHashes.clear();
+        scheduled.clear();
+    }
+
+    /**
+     * Drops the results kept for a player who left. Their queued recomputations are then skipped.
+     */
+    public void forgetPlayer(UUID player) {
+        lastResults.forget(player);
+        resultHashes.forget(player);
+    }
+
     @Override
     public String process(OfflinePlayer player, String[] params) {
         PlaceholderActor actor = PlaceholderActor.of(player);
 
-        String cached = null;
-        String cacheKey = null;
-        if (cacheAnnotation != null && player != null) {
-            cacheKey = buildCacheKey(params);
-            cached = CacheSystem.INSTANCE.getCache(player.getUniqueId(), cacheKey);
-            if (cached != null) {
-                return cached;
-            }
+        if (cacheAnnotation == null || (player == null && !cacheAnnotation.global())) {
+            return compute(actor, params);
         }
 
-        Object[] resolvedParams = resolveParameters(actor, params);
-        if (resolvedParams == null) {
-            return null;
+        UUID uuid = cacheAnnotation.global() ? PlaceholderCacheBackend.GLOBAL : player.getUniqueId();
+        String cacheKey = buildCacheKey(params);
+        PlaceholderCacheEvent cacheEvent = processor.flightRecorder() ? new PlaceholderCacheEvent() : null;
+        if (cacheEvent != null) {
+            cacheEvent.begin();
         }
 
-        String result = invoke(resolvedParams);
+        String cached = processor.cache().getCache(uuid, cacheKey);
+        if (cacheEvent != null) {
+            cacheEvent.complete(id, player, cached != null);
+        }
+        if (cached != null) {
+            return cached;
+        }
+
+        FlightKey key = new FlightKey(uuid, cacheKey);
+        if (deferred) {
+            // Expensive results are served stale until a tick has the budget to recompute them.
+            String stale = lastResults.get(key);
+            if (stale != null) {
+                if (scheduled.add(key)) {
+                    processor.scheduler().submit(cost, this, () -> {
+                        try {
+                            // Not worth recomputing once forgotten, such as when the player left.
+                            if (lastResults.get(key) != null) {
+                                computeShared(actor, params, key);
+                            }
+                        } finally {
+                            scheduled.remove(key);
+                        }
+                    });
+                }
+                return stale;
+            }
+        }
+
+        return computeShared(actor, params, key);
+    }
+
+    private String computeShared(PlaceholderActor actor, String[] params, FlightKey key) {
+        // Concurrent misses on the same key share a single invocation instead of each running the method.
+        return flights.execute(key, () -> {
+            String result = processor.cache().getCache(key.uuid(), key.cacheKey());
+            if (result != null) {
+                return result; // Another flight completed between our miss and now.
+            }
+
+            result = compute(actor, params);
+            if (result != null) {
+                result = processor.intern(result);
+                if (adaptiveTtl != null) {
+                    // A hash collision only hides a change once, which the TTL recovers from.
+                    final int hash = result.hashCode();
+                    final Integer previous = resultHashes.put(key, hash);
+                    if (previous != null) {
+                        adaptiveTtl.observe(previous != hash);
+                    }
+                    processor.cache().cache(key.uuid(), key.cacheKey(), result, adaptiveTtl.nanos(), TimeUnit.NANOSECONDS);
+                } else {
+                    processor.cache().cache(key.uuid(), key.cacheKey(), result, cacheAnnotation.value(), cacheAnnotation.unit());
+                }
+                if (deferred) {
+                    lastResults.put(key, result);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return whether dependents are given the value returned by the method rather than its rendering,
+     * which is when it is formatted: "1,234.00" or "1.2k" cannot be parsed back. Such values are not cached.
+     */
+    boolean injectsValue() {
+        return formatter != ResultFormatter.plain();
+    }
 
-        if (result != null && cacheAnnotation != null && player != null) {
-            CacheSystem.INSTANCE.cache(player.getUniqueId(), cacheKey, result, cacheAnnotation);
+    /**
+     * @return the value returned by the method for these params, before it is formatted and without caching it.
+     */
+    @Nullable
+    Object value(OfflinePlayer player, String[] params) {
+        PlaceholderActor actor = PlaceholderActor.of(player);
+        Object[] resolvedParams = hasDependencies
+                ? processor.inEvaluation(() -> resolveParameters(actor, params))
+                : resolveParameters(actor, params);
+        return resolvedParams != null ? invokeValue(actor, resolvedParams) : null;
+    }
+
+    private String compute(PlaceholderActor actor, String[] params) {
+        PlaceholderArgumentsEvent argumentsEvent = processor.flightRecorder() ? new PlaceholderArgumentsEvent() : null;
+        if (argumentsEvent != null) {
+            argumentsEvent.begin();
+        }
+
+        // Dependencies share one evaluation, so a placeholder needed twice is only computed once.
+        Object[] resolvedParams = hasDependencies
+                ? processor.inEvaluation(() -> resolveParameters(actor, params))
+                : resolveParameters(actor, params);
+        if (argumentsEvent != null) {
+            argumentsEvent.complete(id, actor.getPlayer(), params.length, resolvedParams != null);
+        }
+        if (resolvedParams == null) {
+            return null;
         }
 
-        return result;
+        return formatter.format(invokeValue(actor, resolvedParams));
     }
 
     private String buildCacheKey(String[] params) {
-        String id = (placeholder != null && placeholder.value().length > 0)
-                ? String.join(processor.separator(), placeholder.value())
-                : method.getName();
         return id + ":" + String.join(processor.separator(), params);
     }
 
@@ -108,19 +296,30 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
             argIndex = 1;
         }
 
+        int paramCursor = 0;
         for (int i = 0; i < paramTypes.length; i++) {
             Class<?> type = paramTypes[i];
 
+            // Injected placeholder value
+            String dependency = dependencies[i + argIndex];
+            if (dependency != null) {
+                Object resolvedValue = resolveDependency(actor, dependency, type);
+                if (resolvedValue == null) return null;
+                resolved[i + argIndex] = resolvedValue;
+                continue;
+            }
+
             // Varargs handling
             if (method.isVarArgs() && i == paramTypes.length - 1) {
-                Object varargArray = resolveVarargs(actor, params, i, type.getComponentType());
+                Object varargArray = resolveVarargs(actor, params, paramCursor, type.getComponentType());
                 if (varargArray == null) return null;
                 resolved[i + argIndex] = varargArray;
                 break;
             }
 
             // Normal parameter
-            String value = (i < params.length) ? params[i] : null;
+            String value = (paramCursor < params.length) ? params[paramCursor] : null;
+            paramCursor++;
             Object resolvedValue = resolveSingleParam(actor, value, type, i + argIndex);
             if (resolvedValue == null && !isOptionalWithDefault(i + argIndex)) {
                 return null;
@@ -145,12 +344,31 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
             }
         }
 
-        processor.debug("Missing required parameter in " + method.getName());
+        if (processor.isDebug()) {
+            processor.debug("Missing required parameter in " + method.getName());
+        }
         return null;
     }
 
+    private Object resolveDependency(PlaceholderActor actor, String dependency, Class<?> type) {
+        // Strings get the dependency as it is rendered, other types its value, converted only if need be.
+        Object value = type == String.class
+                ? processor.processDependency(actor.getPlayer(), dependency)
+                : processor.processDependencyValue(actor.getPlayer(), dependency);
+        if (value == null) {
+            if (processor.isDebug()) {
+                processor.debug("Dependency " + dependency + " of " + method.getName() + " returned no value");
+            }
+            return null;
+        }
+        if (MethodType.methodType(type).wrap().returnType().isInstance(value)) {
+            return value;
+        }
+        return safeParse(actor, value.toString(), type);
+    }
+
     private Object resolveVarargs(PlaceholderActor actor, String[] params, int startIndex, Class<?> componentType) {
-        String[] remaining = Arrays.copyOfRange(params, startIndex, params.length);
+        String[] remaining = Arrays.copyOfRange(params, Math.min(startIndex, params.length), params.length);
         Object array = Array.newInstance(componentType, remaining.length);
 
         for (int j = 0; j < remaining.length; j++) {
@@ -162,23 +380,33 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
     }
 
     private Object safeParse(PlaceholderActor actor, String value, Class<?> type) {
+        if (type.isEnum()) {
+            return processor.getEnumLookup(type).get(value);
+        }
+
         try {
-            return type.isEnum()
-                    ? Enum.valueOf(type.asSubclass(Enum.class), value.toUpperCase())
-                    : Objects.requireNonNull(processor.getValueResolver(type)).resolve(actor, value);
+            return Objects.requireNonNull(processor.getValueResolver(type)).resolve(actor, value);
         } catch (Exception e) {
             processor.logger().log(Level.WARNING, "Failed to parse '" + value + "' as " + type.getSimpleName() + " in method " + method.getName(), e);
             return null;
         }
     }
 
-    private String invoke(Object[] params) {
+    private Object invokeValue(PlaceholderActor actor, Object[] params) {
+        PlaceholderInvocationEvent invocationEvent = processor.flightRecorder() ? new PlaceholderInvocationEvent() : null;
+        if (invocationEvent != null) {
+            invocationEvent.begin();
+        }
+
         try {
-            Object result = method.invoke(expansion, params);
-            return (result == null) ? null : result.toString();
+            return method.invoke(expansion, params);
         } catch (IllegalAccessException | InvocationTargetException e) {
             processor.logger().log(Level.SEVERE, "Error invoking placeholder method: " + method.getName(), e);
             return null;
+        } finally {
+            if (invocationEvent != null) {
+                invocationEvent.complete(id, actor.getPlayer(), method.getName());
+            }
         }
     }
 
@@ -187,6 +415,35 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
         return opt != null && !opt.defaultParameter().isEmpty();
     }
 
+    private void prepareEnumLookups() {
+        for (Class<?> type : method.getParameterTypes()) {
+            Class<?> valueType = type.isArray() ? type.getComponentType() : type;
+            if (valueType.isEnum()) {
+                processor.getEnumLookup(valueType);
+            }
+        }
+    }
+
+    private static AdaptiveTtl createAdaptiveTtl(Cache cache) {
+        TimeUnit unit = cache.unit();
+        long initial = unit.toNanos(cache.value());
+        long min = cache.min() > 0 ? unit.toNanos(cache.min()) : Math.max(1, initial / 4);
+        long max = cache.max() > 0 ? unit.toNanos(cache.max()) : initial * 4;
+        return new AdaptiveTtl(initial, min, max);
+    }
+
+    private static String[] findDependencies(Method method, String separator) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        String[] ids = new String[parameterAnnotations.length];
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            Depends depends = getAnnotation(method, i, Depends.class);
+            if (depends != null) {
+                ids[i] = String.join(separator, depends.value()).toLowerCase();
+            }
+        }
+        return ids;
+    }
+
     @Nullable
     private static <T extends Annotation> T getAnnotation(Method method, int paramIndex, Class<T> clazz) {
         Annotation[][] parameterAnnotations = method.getParameterAnnotations();
@@ -200,4 +457,50 @@ public class MethodBasePlaceholderImpl implements BasePlaceholder {
         }
         return null;
     }
+
+    /**
+     * Values kept by player then cache key, dropped when the player quits or all at once when too many are kept.
+     */
+    private static final class PlayerResults<V> {
+
+        private final Map<UUID, Map<String, V>> values = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Nullable
+        private V get(FlightKey key) {
+            final Map<String, V> results = values.get(key.uuid());
+            return results != null ? results.get(key.cacheKey()) : null;
+        }
+
+        /**
+         * @return the previous value of the key, if still kept.
+         */
+        @Nullable
+        private V put(FlightKey key, V value) {
+            if (count.get() >= MAX_LAST_RESULTS) {
+                clear();
+            }
+
+            final V previous = values.computeIfAbsent(key.uuid(), ignored -> new ConcurrentHashMap<>()).put(key.cacheKey(), value);
+            if (previous == null) {
+                count.incrementAndGet();
+            }
+            return previous;
+        }
+
+        private void forget(UUID player) {
+            final Map<String, V> results = values.remove(player);
+            if (results != null) {
+                count.addAndGet(-results.size());
+            }
+        }
+
+        private void clear() {
+            values.clear();
+            count.set(0);
+        }
+    }
+
+    private record FlightKey(UUID uuid, String cacheKey) {
+    }
 }
@@ -4,43 +4,124 @@ import fr.robotv2.placeholderannotationlib.annotations.DefaultPlaceholder;
 import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
 import fr.robotv2.placeholderannotationlib.api.BasePlaceholder;
 import fr.robotv2.placeholderannotationlib.api.BasePlaceholderExpansion;
+import fr.robotv2.placeholderannotationlib.api.KeyedValueResolver;
 import fr.robotv2.placeholderannotationlib.api.PlaceholderActor;
 import fr.robotv2.placeholderannotationlib.api.PlaceholderAnnotationProcessor;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderCacheBackend;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderSubscription;
+import fr.robotv2.placeholderannotationlib.api.PublishedPlaceholder;
 import fr.robotv2.placeholderannotationlib.api.ValueResolver;
-import org.bukkit.Bukkit;
+import fr.robotv2.placeholderannotationlib.jfr.PlaceholderRoutingEvent;
+import fr.robotv2.placeholderannotationlib.util.CacheSnapshot;
+import fr.robotv2.placeholderannotationlib.util.CacheSystem;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import fr.robotv2.placeholderannotationlib.util.KeyedLookup;
+import fr.robotv2.placeholderannotationlib.util.PlayerIndex;
+import fr.robotv2.placeholderannotationlib.util.RecomputeScheduler;
+import fr.robotv2.placeholderannotationlib.util.ResultInterner;
+import fr.robotv2.placeholderannotationlib.util.RouteTable;
+import fr.robotv2.placeholderannotationlib.util.TieredCacheBackend;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
-public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotationProcessor {
+public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotationProcessor, Listener {
+
+    // Marks a dependency whose value is being computed, to stop evaluation cycles.
+    private static final String IN_PROGRESS = new String("<in progress>");
+
+    private static final int MAX_UNKNOWN_IDS = 1024;
 
     private final String separator;
     private final boolean debug;
+    private final boolean flightRecorder;
     private final Logger logger;
+    private final PlaceholderCacheBackend cache;
+    private final RecomputeScheduler scheduler;
+    private final ResultInterner interner;
 
     private BasePlaceholder defaultPlaceholder;
     private final Map<Class<?>, ValueResolver<?>> resolvers;
+    private final Map<Class<?>, KeyedLookup<?>> enumLookups;
+    // In registration order, which decides between ids only differing by the names of their variables.
+    // Guarded by itself, so routes can be compiled from any thread.
     private final Map<String, BasePlaceholder> placeholders;
+    private final Map<BasePlaceholderExpansion, Registration> expansions = new IdentityHashMap<>();
+    // Params routing to nothing, tagged with the route table they were looked up in.
+    private final Map<String, UnknownId> unknownIds = new ConcurrentHashMap<>();
+    private final LongAdder unknownRequests = new LongAdder();
+    private final ThreadLocal<Evaluation> evaluation = new ThreadLocal<>();
+    private final PlayerIndex playerIndex = new PlayerIndex();
+    private final Set<PlaceholderSubscriptionImpl> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile RouteTable<BasePlaceholder> routes; // Compiled on first use once they changed.
+    private volatile int routesVersion;
+    private boolean bound;
+    private BukkitTask tickTask;
 
     public PlaceholderAnnotationProcessorImpl(String separator, Logger logger, boolean debug) {
+        this(separator, logger, debug, CacheSystem.INSTANCE);
+    }
+
+    public PlaceholderAnnotationProcessorImpl(String separator, Logger logger, boolean debug, PlaceholderCacheBackend cache) {
+        this(separator, logger, debug, cache, false);
+    }
+
+    public PlaceholderAnnotationProcessorImpl(String separator, Logger logger, boolean debug, PlaceholderCacheBackend cache, boolean flightRecorder) {
+        this(separator, logger, debug, cache, flightRecorder, null);
+    }
+
+    public PlaceholderAnnotationProcessorImpl(String separator, Logger logger, boolean debug, PlaceholderCacheBackend cache, boolean flightRecorder, RecomputeScheduler scheduler) {
+        // The compact cache decodes a new string on every hit, interning would not outlive the miss.
+        this(separator, logger, debug, cache, flightRecorder, scheduler,
+                cache instanceof CompactCacheSystem ? null : new ResultInterner(ResultInterner.DEFAULT_CAPACITY));
+    }
+
+    public PlaceholderAnnotationProcessorImpl(String separator, Logger logger, boolean debug, PlaceholderCacheBackend cache, boolean flightRecorder,
+                                              RecomputeScheduler scheduler, ResultInterner interner) {
         this.separator = separator;
         this.debug = debug;
+        this.flightRecorder = flightRecorder;
         this.logger = logger;
+        this.cache = cache;
+        this.scheduler = scheduler;
+        this.interner = interner;
         this.defaultPlaceholder = null;
         this.resolvers = new HashMap<>();
-        this.placeholders = new HashMap<>();
+        this.enumLookups = new ConcurrentHashMap<>();
+        this.placeholders = new LinkedHashMap<>();
         registerDefaultValueResolvers();
     }
 
@@ -54,12 +135,110 @@ public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotation
         return logger;
     }
 
+    public PlaceholderCacheBackend cache() {
+        return cache;
+    }
+
+    /**
+     * @return the scheduler of expensive recomputations, or {@code null} if they run on the requesting thread.
+     */
+    public RecomputeScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Binds this processor to the plugin using it, so it can listen to the server's events
+     * and run its tick on the main thread. The players known by the server are indexed asynchronously.
+     */
+    public void bind(Plugin plugin) {
+        plugin.getServer().getPluginManager().registerEvents(playerIndex, plugin);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        playerIndex.preload(task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task));
+        bound = true;
+        if (scheduler != null) {
+            tickTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Drops what is kept for the player only while they are online, such as their published values,
+     * the last results of their placeholders and their subscriptions, which are closed.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        final UUID player = event.getPlayer().getUniqueId();
+        for (PlaceholderSubscriptionImpl subscription : subscriptions) {
+            if (subscription.player() != null && player.equals(subscription.player().getUniqueId())) {
+                subscription.close();
+            }
+        }
+        for (BasePlaceholder placeholder : placeholders().values()) {
+            if (placeholder instanceof PublishedPlaceholderImpl published) {
+                published.publish(player, null);
+            } else if (placeholder instanceof MethodBasePlaceholderImpl method) {
+                method.forgetPlayer(player);
+            }
+        }
+        if (defaultPlaceholder instanceof MethodBasePlaceholderImpl method) {
+            method.forgetPlayer(player);
+        }
+    }
+
+    @Override
+    public Map<String, Duration> cacheTtls() {
+        final Map<String, Duration> ttls = new LinkedHashMap<>();
+        placeholders().forEach((id, placeholder) -> {
+            if (placeholder instanceof MethodBasePlaceholderImpl method && method.getCacheTtl() != null) {
+                ttls.put(id, method.getCacheTtl());
+            }
+        });
+        return ttls;
+    }
+
+    @Override
+    public int tick() {
+        return scheduler != null ? scheduler.tick() : 0;
+    }
+
+    @Override
+    public int recomputeBacklog() {
+        return scheduler != null ? scheduler.backlog() : 0;
+    }
+
+    /**
+     * @return the instance shared by every result equal to this one cached by this processor,
+     * or the result itself if results are not interned.
+     */
+    public String intern(String result) {
+        return interner != null ? interner.intern(result) : result;
+    }
+
+    /**
+     * @return whether placeholders should emit Java Flight Recorder events.
+     */
+    public boolean flightRecorder() {
+        return flightRecorder;
+    }
+
+    public boolean isDebug() {
+        return debug;
+    }
+
     public void debug(String message) {
         if (debug) {
             logger.info("[DEBUG] " + message);
         }
     }
 
+    /**
+     * Logs the message when debug is enabled, building it only then.
+     */
+    public void debug(Supplier<String> message) {
+        if (debug) {
+            logger.info("[DEBUG] " + message.get());
+        }
+    }
+
     @Override
     public String process(OfflinePlayer player, String params) {
         if (params == null || params.isEmpty()) {
@@ -76,60 +255,306 @@ public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotation
             return null;
         }
 
-        String[] parts = params.split(Pattern.quote(separator()));
-        String matchedId = null;
-        BasePlaceholder matchedPlaceholder = null;
-        int matchedLength = 0;
+        final PlaceholderRoutingEvent routing = flightRecorder ? new PlaceholderRoutingEvent() : null;
+        if (routing != null) {
+            routing.begin();
+        }
 
-        // Longest match search
-        for (int i = parts.length; i > 0; i--) {
-            String candidateId = String.join(separator(), Arrays.copyOfRange(parts, 0, i)).toLowerCase();
-            if (placeholders.containsKey(candidateId)) {
-                matchedId = candidateId;
-                matchedPlaceholder = placeholders.get(candidateId);
-                matchedLength = i;
-                break;
+        // Params already known not to match anything skip the longest match search and keep their default arguments.
+        final RouteTable<BasePlaceholder> current = routes();
+        final UnknownId unknown = unknownIds.get(params);
+        if (unknown != null && unknown.routes() == current) {
+            unknownRequests.increment();
+            if (routing != null) {
+                routing.complete(params, null, player);
             }
+            return processUnknown(player, unknown.defaultArgs());
         }
 
-        if (matchedPlaceholder == null) {
-            debug("No placeholder found for: " + params);
-            if (defaultPlaceholder == null) {
-                return "";
+        // Nothing matches a first segment no id starts with, whatever follows it.
+        RouteTable.Match<BasePlaceholder> route = current.routesFirstSegment(params, firstSegmentEnd(params))
+                ? current.match(params)
+                : null;
+
+        if (route == null) {
+            if (debug) {
+                debug("No placeholder found for: " + params);
             }
 
-            if (parts.length < 3) {
-                return "";
+            if (unknownIds.size() >= MAX_UNKNOWN_IDS) {
+                unknownIds.clear();
+            }
+            // Tagged with the table it missed in: one compiled since never trusts it.
+            final String[] defaultArgs = defaultArgs(params);
+            unknownIds.put(params, new UnknownId(current, defaultArgs));
+            unknownRequests.increment();
+            if (routing != null) {
+                routing.complete(params, null, player);
             }
-            String[] argsForDefault = Arrays.copyOfRange(parts, parts.length - 2, parts.length);
-            return defaultPlaceholder.process(player, argsForDefault);
+            return processUnknown(player, defaultArgs);
         }
 
-        if (matchedPlaceholder.requiresOnlinePlayer()) {
+        if (routing != null) {
+            routing.complete(params, route.id(), player);
+        }
+
+        return process(player, route);
+    }
+
+    String process(OfflinePlayer player, RouteTable.Match<BasePlaceholder> route) {
+        if (route.value().requiresOnlinePlayer()) {
             if (!(player instanceof Player) || !player.isOnline()) {
-                debug("Placeholder requires online player: " + matchedId);
+                if (debug) {
+                    debug("Placeholder requires online player: " + route.id());
+                }
                 return "";
             }
         }
 
-        String[] args = Arrays.copyOfRange(parts, matchedLength, parts.length);
-        return matchedPlaceholder.process(player, args);
+        return route.value().process(player, route.args());
+    }
+
+    /**
+     * @return the placeholder the params are routed to, or {@code null} if none matches.
+     */
+    RouteTable.Match<BasePlaceholder> route(String params) {
+        return routes().match(params);
+    }
+
+    /**
+     * @return how many times routes were registered, to tell when a resolved route may be outdated.
+     */
+    int routesVersion() {
+        return routesVersion;
+    }
+
+    private String processUnknown(OfflinePlayer player, @Nullable String[] defaultArgs) {
+        final BasePlaceholder current = defaultPlaceholder;
+        if (current == null || defaultArgs == null) {
+            return "";
+        }
+        return current.process(player, defaultArgs);
+    }
+
+    /**
+     * @return the arguments the default placeholder is given for these params, or {@code null} if they have too few segments.
+     */
+    @Nullable
+    private String[] defaultArgs(String params) {
+        final String[] parts = params.split(Pattern.quote(separator()));
+        if (parts.length < 3) {
+            return null;
+        }
+        return Arrays.copyOfRange(parts, parts.length - 2, parts.length);
+    }
+
+    private int firstSegmentEnd(String params) {
+        final int end = params.indexOf(separator);
+        return end < 0 ? params.length() : end;
+    }
+
+    @Override
+    public long unknownPlaceholderRequests() {
+        return unknownRequests.sum();
+    }
+
+    @Override
+    public Map<String, String> processAll(OfflinePlayer player, Collection<String> params) {
+        return inEvaluation(() -> {
+            final Map<String, String> results = new LinkedHashMap<>();
+            for (String param : params) {
+                // Routing already ignores the case of the id, arguments are passed as they are.
+                results.put(param, processDependency(player, param));
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Runs the task with an evaluation shared by every dependency resolved inside it,
+     * so each placeholder is only computed once for the whole task.
+     */
+    public <T> T inEvaluation(Supplier<T> task) {
+        if (evaluation.get() != null) {
+            return task.get();
+        }
+
+        evaluation.set(new Evaluation());
+        try {
+            return task.get();
+        } finally {
+            evaluation.remove();
+        }
+    }
+
+    public String processDependency(OfflinePlayer player, String params) {
+        final Evaluation current = evaluation.get();
+        if (current == null) {
+            return process(player, params);
+        }
+
+        final Map<String, String> results = current.rendered;
+        if (results.containsKey(params)) {
+            final String result = results.get(params);
+            if (result == IN_PROGRESS) {
+                logger.warning("Placeholder dependency cycle detected while evaluating: " + params);
+                return null;
+            }
+            return result;
+        }
+
+        results.put(params, IN_PROGRESS);
+        final String result = process(player, params);
+        results.put(params, result);
+        return result;
+    }
+
+    /**
+     * @return the value of the placeholder before it is formatted when it is computed by a method
+     * with a format, otherwise its rendering.
+     */
+    @Nullable
+    public Object processDependencyValue(OfflinePlayer player, String params) {
+        final RouteTable.Match<BasePlaceholder> route = routes().match(params);
+        if (route == null || !(route.value() instanceof MethodBasePlaceholderImpl method) || !method.injectsValue()) {
+            return processDependency(player, params);
+        }
+        if (method.requiresOnlinePlayer() && (!(player instanceof Player) || !player.isOnline())) {
+            return null;
+        }
+
+        final Evaluation current = evaluation.get();
+        if (current == null) {
+            return method.value(player, route.args());
+        }
+
+        final Map<String, Object> values = current.values;
+        if (values.containsKey(params)) {
+            final Object value = values.get(params);
+            if (value == IN_PROGRESS) {
+                logger.warning("Placeholder dependency cycle detected while evaluating: " + params);
+                return null;
+            }
+            return value;
+        }
+
+        values.put(params, IN_PROGRESS);
+        final Object value = method.value(player, route.args());
+        values.put(params, value);
+        return value;
     }
 
     @Override
     public <T> void registerValueResolver(Class<? extends T> tClass, ValueResolver<? extends T> resolver) {
+        if (resolver instanceof KeyedValueResolver<? extends T> keyed) {
+            resolvers.put(tClass, new KeyedTable<>(keyed));
+            return;
+        }
+
         resolvers.put(tClass, resolver);
     }
 
+    @Override
+    public void refreshKeyedValueResolvers() {
+        for (ValueResolver<?> resolver : resolvers.values()) {
+            if (resolver instanceof KeyedTable<?> table) {
+                table.refresh();
+            }
+        }
+    }
+
     @Override
     public void registerExpansion(BasePlaceholderExpansion expansion) {
         debug("Registering expansion: " + expansion.getClass().getName());
 
-        for (Method method : expansion.getClass().getDeclaredMethods()) {
-            processAccessible(expansion, method);
+        // Staged until the whole expansion is accepted, so a rejected one leaves nothing behind.
+        final Map<String, BasePlaceholder> registered = new LinkedHashMap<>();
+        BasePlaceholder registeredDefault = null;
+        final List<AccessibleObject> accessibles = new ArrayList<>(Arrays.asList(expansion.getClass().getDeclaredMethods()));
+        accessibles.addAll(Arrays.asList(expansion.getClass().getDeclaredFields()));
+        for (AccessibleObject accessible : accessibles) {
+            final BasePlaceholder defaultImpl = processAccessible(expansion, accessible, registered);
+            if (defaultImpl != null) {
+                if (this.defaultPlaceholder != null || registeredDefault != null) {
+                    throw new IllegalStateException("Only one @DefaultPlaceholder allowed per processor.");
+                }
+                registeredDefault = defaultImpl;
+            }
+        }
+
+        final Map<String, BasePlaceholder> merged = placeholders();
+        merged.putAll(registered);
+        checkDependencyCycles(merged);
+
+        synchronized (placeholders) {
+            placeholders.putAll(registered);
+            routesChanged();
+        }
+        if (registeredDefault != null) {
+            this.defaultPlaceholder = registeredDefault;
+        }
+        expansions.put(expansion, new Registration(registered, registeredDefault));
+    }
+
+    @Override
+    public boolean unregisterExpansion(BasePlaceholderExpansion expansion) {
+        final Registration registration = expansions.remove(expansion);
+        if (registration == null) {
+            return false;
+        }
+
+        debug("Unregistering expansion: " + expansion.getClass().getName());
+
+        final List<BasePlaceholder> released = new ArrayList<>(registration.placeholders().values());
+        // Ids registered again since by something else are kept.
+        synchronized (placeholders) {
+            registration.placeholders().forEach(placeholders::remove);
+            routesChanged();
+        }
+        if (registration.defaultPlaceholder() != null) {
+            released.add(registration.defaultPlaceholder());
+            if (defaultPlaceholder == registration.defaultPlaceholder()) {
+                defaultPlaceholder = null;
+            }
+        }
+
+        release(released);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        debug("Closing processor");
+
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        if (bound) {
+            HandlerList.unregisterAll(playerIndex);
+            HandlerList.unregisterAll(this);
+            bound = false;
+        }
+
+        final List<BasePlaceholder> released;
+        synchronized (placeholders) {
+            released = new ArrayList<>(placeholders.values());
+            placeholders.clear();
+            routesChanged();
+        }
+        if (defaultPlaceholder != null) {
+            released.add(defaultPlaceholder);
+        }
+        expansions.clear();
+        defaultPlaceholder = null;
+        release(released);
+
+        subscriptions.forEach(PlaceholderSubscriptionImpl::close);
+        if (scheduler != null) {
+            scheduler.clear();
         }
-        for (Field field : expansion.getClass().getDeclaredFields()) {
-            processAccessible(expansion, field);
+        if (cache instanceof TieredCacheBackend tiered) {
+            tiered.flush();
         }
     }
 
@@ -150,17 +575,103 @@ public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotation
         String normalizedParams = params.toLowerCase();
         debug("Registering direct placeholder: " + normalizedParams);
 
-        if (placeholders.containsKey(normalizedParams)) {
-            logger.warning("Duplicate placeholder id: " + normalizedParams);
+        BasePlaceholder directPlaceholder = new DirectPlaceholderImpl(function, requiresOnlinePlayer);
+        synchronized (placeholders) {
+            if (placeholders.containsKey(normalizedParams)) {
+                logger.warning("Duplicate placeholder id: " + normalizedParams);
+            } else {
+                warnSameSegments(normalizedParams, placeholders.keySet());
+            }
+            placeholders.put(normalizedParams, directPlaceholder);
+            routesChanged();
         }
+    }
 
-        BasePlaceholder directPlaceholder = new DirectPlaceholderImpl(function, requiresOnlinePlayer);
-        placeholders.put(normalizedParams, directPlaceholder);
+    @Override
+    public PublishedPlaceholder registerPublished(String params) {
+        if (params == null || params.isEmpty()) {
+            throw new IllegalArgumentException("Params cannot be null or empty");
+        }
+
+        String normalizedParams = params.toLowerCase();
+        debug("Registering published placeholder: " + normalizedParams);
+
+        PublishedPlaceholderImpl publishedPlaceholder = new PublishedPlaceholderImpl();
+        synchronized (placeholders) {
+            if (placeholders.containsKey(normalizedParams)) {
+                logger.warning("Duplicate placeholder id: " + normalizedParams);
+            } else {
+                warnSameSegments(normalizedParams, placeholders.keySet());
+            }
+            placeholders.put(normalizedParams, publishedPlaceholder);
+            routesChanged();
+        }
+        return publishedPlaceholder;
     }
 
     @Override
     public Set<String> registeredPlaceholders() {
-        return Collections.unmodifiableSet(placeholders.keySet());
+        return Collections.unmodifiableSet(placeholders().keySet());
+    }
+
+    @Override
+    public PlaceholderSubscription subscribe(OfflinePlayer player, String params) {
+        return subscribe(player, params, null);
+    }
+
+    @Override
+    public PlaceholderSubscription subscribe(OfflinePlayer player, String params, Consumer<String> listener) {
+        if (params == null || params.isEmpty()) {
+            throw new IllegalArgumentException("Params cannot be null or empty");
+        }
+
+        PlaceholderSubscriptionImpl subscription = new PlaceholderSubscriptionImpl(this, player, params, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    @Override
+    public List<PlaceholderSubscription> refreshSubscriptions() {
+        final List<PlaceholderSubscription> changed = new ArrayList<>();
+        for (PlaceholderSubscriptionImpl subscription : subscriptions) {
+            if (subscription.refresh()) {
+                changed.add(subscription);
+            }
+        }
+        return changed;
+    }
+
+    void unsubscribe(PlaceholderSubscriptionImpl subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    @Override
+    public int saveCache(Path file) throws IOException {
+        final List<MethodBasePlaceholderImpl> methods = new ArrayList<>();
+        for (BasePlaceholder placeholder : placeholders().values()) {
+            if (placeholder instanceof MethodBasePlaceholderImpl method) {
+                methods.add(method);
+            }
+        }
+
+        // The default backend is shared by every processor of the plugin, only this one's keys are written.
+        final int written = CacheSnapshot.save(cache, file, key -> {
+            for (MethodBasePlaceholderImpl method : methods) {
+                if (method.ownsCacheKey(key)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        debug("Saved " + written + " cached results to " + file);
+        return written;
+    }
+
+    @Override
+    public int loadCache(Path file) throws IOException {
+        final int restored = CacheSnapshot.load(cache, file);
+        debug("Restored " + restored + " cached results from " + file);
+        return restored;
     }
 
     @SuppressWarnings("unchecked")
@@ -168,12 +679,24 @@ public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotation
         return (ValueResolver<T>) resolvers.get(clazz);
     }
 
-    private void processAccessible(BasePlaceholderExpansion expansion, AccessibleObject accessible) {
+    /**
+     * @return a case-insensitive lookup table of the constants of the given enum, built on first use.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public KeyedLookup<?> getEnumLookup(Class<?> enumClass) {
+        final KeyedLookup<?> lookup = enumLookups.get(enumClass);
+        return lookup != null ? lookup : enumLookups.computeIfAbsent(enumClass, type -> KeyedLookup.ofEnum((Class) type));
+    }
+
+    /**
+     * @return the placeholder if it is the {@link DefaultPlaceholder}, to be installed once the expansion is accepted.
+     */
+    private BasePlaceholder processAccessible(BasePlaceholderExpansion expansion, AccessibleObject accessible, Map<String, BasePlaceholder> registered) {
         final Placeholder placeholder = accessible.getAnnotation(Placeholder.class);
         final boolean isDefault = accessible.isAnnotationPresent(DefaultPlaceholder.class);
 
         if (placeholder == null && !isDefault) {
-            return; // Skip if neither @Placeholder nor @DefaultPlaceholder
+            return null; // Skip if neither @Placeholder nor @DefaultPlaceholder
         }
 
         BasePlaceholder placeholderImpl;
@@ -185,25 +708,186 @@ public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotation
             method.setAccessible(true);
             placeholderImpl = new MethodBasePlaceholderImpl(this, expansion, method, placeholder, isDefault);
         } else {
-            return;
+            return null;
         }
 
         if (isDefault) {
-            if (this.defaultPlaceholder != null) {
-                throw new IllegalStateException("Only one @DefaultPlaceholder allowed per processor.");
-            }
-            this.defaultPlaceholder = placeholderImpl;
             debug("Registered default placeholder: " + accessible);
         }
 
         if (placeholder != null) {
             String joinedId = String.join(separator(), placeholder.value()).toLowerCase();
-            if (placeholders.containsKey(joinedId)) {
-                logger.warning("Duplicate placeholder id: " + joinedId);
+            synchronized (placeholders) {
+                if (placeholders.containsKey(joinedId) || registered.containsKey(joinedId)) {
+                    logger.warning("Duplicate placeholder id: " + joinedId);
+                } else {
+                    warnSameSegments(joinedId, placeholders.keySet());
+                    warnSameSegments(joinedId, registered.keySet());
+                }
             }
-            placeholders.put(joinedId, placeholderImpl);
+            registered.put(joinedId, placeholderImpl);
             debug("Registered placeholder: " + joinedId);
         }
+        return isDefault ? placeholderImpl : null;
+    }
+
+    /**
+     * Warns when the id only differs from a registered one by the names of its variables, such as
+     * {@code top_{a}} and {@code top_{b}}: params match both alike, the one registered first is routed to.
+     */
+    private void warnSameSegments(String id, Collection<String> ids) {
+        if (id.indexOf('{') < 0) {
+            return;
+        }
+
+        final String shape = RouteTable.shape(id, separator);
+        for (String other : ids) {
+            if (other.indexOf('{') >= 0 && RouteTable.shape(other, separator).equals(shape)) {
+                logger.warning("Placeholder id " + id + " matches the same params as " + other + ", which is routed to instead");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the compiled routes, compiled again on first use so registering many ids compiles them once.
+     * Called holding the lock of the placeholders.
+     */
+    private void routesChanged() {
+        routes = null;
+        unknownIds.clear();
+        routesVersion++;
+    }
+
+    /**
+     * @return a copy of the placeholders by id, in registration order, that registrations running meanwhile do not affect.
+     */
+    private Map<String, BasePlaceholder> placeholders() {
+        synchronized (placeholders) {
+            return new LinkedHashMap<>(placeholders);
+        }
+    }
+
+    private RouteTable<BasePlaceholder> routes() {
+        RouteTable<BasePlaceholder> current = routes;
+        if (current == null) {
+            synchronized (placeholders) {
+                current = routes;
+                if (current == null) {
+                    current = RouteTable.compile(placeholders, separator);
+                    routes = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drops everything still referencing placeholders that are no longer routed to: their cached results,
+     * their queued recomputations and the routes resolved by subscriptions, so their expansion can be
+     * collected. Called once they are unreachable through routes.
+     */
+    private void release(List<BasePlaceholder> released) {
+        final List<MethodBasePlaceholderImpl> methods = new ArrayList<>();
+        for (BasePlaceholder placeholder : released) {
+            if (placeholder instanceof MethodBasePlaceholderImpl method) {
+                methods.add(method);
+            }
+        }
+
+        if (!methods.isEmpty()) {
+            cache.invalidate(key -> {
+                for (MethodBasePlaceholderImpl method : methods) {
+                    if (method.ownsCacheKey(key)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+
+        for (MethodBasePlaceholderImpl method : methods) {
+            if (scheduler != null) {
+                scheduler.cancel(method);
+            }
+            method.release();
+        }
+
+        subscriptions.forEach(PlaceholderSubscriptionImpl::forgetRoute);
+        // Lookups may hold enums of the expansion's class loader, they are rebuilt on first use.
+        enumLookups.clear();
+    }
+
+    private void checkDependencyCycles(Map<String, BasePlaceholder> graph) {
+        final RouteTable<BasePlaceholder> table = RouteTable.compile(graph, separator);
+        final Map<String, Boolean> visited = new HashMap<>(); // false while on the current path
+        for (String id : graph.keySet()) {
+            visitDependencies(graph, table, id, visited, new ArrayList<>());
+        }
+    }
+
+    private void visitDependencies(Map<String, BasePlaceholder> graph, RouteTable<BasePlaceholder> table, String id,
+                                   Map<String, Boolean> visited, List<String> path) {
+        final Boolean done = visited.get(id);
+        if (Boolean.TRUE.equals(done)) {
+            return;
+        }
+
+        path.add(id);
+        if (done != null) {
+            final List<String> cycle = path.subList(path.indexOf(id), path.size());
+            throw new IllegalStateException("Placeholder dependency cycle: " + String.join(" -> ", cycle));
+        }
+
+        visited.put(id, false);
+        if (graph.get(id) instanceof MethodBasePlaceholderImpl method) {
+            for (String dependency : method.getDependencies()) {
+                final RouteTable.Match<BasePlaceholder> target = table.match(dependency);
+                if (target != null) {
+                    visitDependencies(graph, table, target.id(), visited, path);
+                }
+            }
+        }
+        visited.put(id, true);
+        path.remove(path.size() - 1);
+    }
+
+    /**
+     * The dependencies computed by an evaluation, by params: as rendered, and as values for those injected before formatting.
+     */
+    private record UnknownId(RouteTable<BasePlaceholder> routes, @Nullable String[] defaultArgs) {
+    }
+
+    private static final class Evaluation {
+
+        private final Map<String, String> rendered = new HashMap<>();
+        private final Map<String, Object> values = new HashMap<>();
+    }
+
+    private record Registration(Map<String, BasePlaceholder> placeholders, BasePlaceholder defaultPlaceholder) {
+    }
+
+    /**
+     * Resolves through a lookup table built from a {@link KeyedValueResolver}, until it is refreshed.
+     */
+    private static final class KeyedTable<T> implements ValueResolver<T> {
+
+        private final KeyedValueResolver<? extends T> keyed;
+        private volatile KeyedLookup<? extends T> lookup;
+
+        private KeyedTable(KeyedValueResolver<? extends T> keyed) {
+            this.keyed = keyed;
+            refresh();
+        }
+
+        private void refresh() {
+            this.lookup = KeyedLookup.of(keyed.values());
+        }
+
+        @Override
+        public T resolve(PlaceholderActor actor, String param) {
+            return lookup.get(param);
+        }
     }
 
     private void registerDefaultValueResolvers() {
@@ -224,16 +908,8 @@ public class PlaceholderAnnotationProcessorImpl implements PlaceholderAnnotation
         registerValueResolver(char.class, (issuer, param) -> param.charAt(0));
         registerValueResolver(Short.class, (issuer, param) -> Short.parseShort(param));
         registerValueResolver(short.class, (issuer, param) -> Short.parseShort(param));
-        registerValueResolver(Player.class, (issuer, param) -> Bukkit.getPlayer(param));
-        registerValueResolver(OfflinePlayer.class, (issuer, param) -> {
-            final Player player = Bukkit.getPlayer(param);
-            if (player != null && player.isOnline()) {
-                return player;
-            } else {
-                final OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(param);
-                return offlinePlayer.hasPlayedBefore() ? offlinePlayer : null;
-            }
-        });
-        registerValueResolver(World.class, (issuer, param) -> Bukkit.getWorld(param));
+        registerValueResolver(Player.class, (issuer, param) -> playerIndex.getPlayer(param));
+        registerValueResolver(OfflinePlayer.class, (issuer, param) -> playerIndex.getOfflinePlayer(param));
+        registerValueResolver(World.class, (issuer, param) -> playerIndex.getWorld(param));
     }
 }
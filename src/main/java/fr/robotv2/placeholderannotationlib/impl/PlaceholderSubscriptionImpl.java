@@ -0,0 +1,119 @@
+package fr.robotv2.placeholderannotationlib.impl;
+
+import fr.robotv2.placeholderannotationlib.api.BasePlaceholder;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderSubscription;
+import fr.robotv2.placeholderannotationlib.util.RouteTable;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the route of its params once resolved, so refreshing skips the longest match search
+ * until routes are registered again. Published placeholders are not even evaluated while nothing
+ * was published since the last refresh. Results are compared with {@link Objects#equals}, which
+ * returns right away for the same instance, such as cache hits and unchanged fields.
+ */
+public class PlaceholderSubscriptionImpl implements PlaceholderSubscription {
+
+    private static final long UNVERSIONED = -1L;
+
+    private final PlaceholderAnnotationProcessorImpl processor;
+    private final OfflinePlayer player;
+    private final String params;
+    private final Consumer<String> listener;
+
+    // Guarded by this.
+    private RouteTable.Match<BasePlaceholder> route;
+    private int routesVersion = -1;
+    private long publishedVersion = UNVERSIONED;
+    private boolean delivered;
+    private volatile String value;
+    private volatile boolean closed;
+
+    public PlaceholderSubscriptionImpl(
+            PlaceholderAnnotationProcessorImpl processor,
+            @Nullable OfflinePlayer player,
+            String params,
+            @Nullable Consumer<String> listener) {
+        this.processor = processor;
+        this.player = player;
+        this.params = params;
+        this.listener = listener;
+    }
+
+    @Override
+    @Nullable
+    public OfflinePlayer player() {
+        return player;
+    }
+
+    @Override
+    public String params() {
+        return params;
+    }
+
+    @Override
+    public boolean refresh() {
+        final String current;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+
+            final int version = processor.routesVersion();
+            if (version != routesVersion) {
+                route = processor.route(params);
+                routesVersion = version;
+                publishedVersion = UNVERSIONED;
+            }
+
+            if (route != null && route.value() instanceof PublishedPlaceholderImpl published) {
+                final long seen = published.version();
+                if (delivered && seen == publishedVersion) {
+                    return false;
+                }
+                publishedVersion = seen;
+            }
+
+            current = route != null ? processor.process(player, route) : processor.process(player, params);
+            if (delivered && Objects.equals(current, value)) {
+                return false;
+            }
+
+            value = current;
+            delivered = true;
+        }
+
+        if (listener != null) {
+            listener.accept(current);
+        }
+        return true;
+    }
+
+    /**
+     * Drops the resolved route, which may hold an unregistered placeholder, until the next refresh.
+     */
+    synchronized void forgetRoute() {
+        route = null;
+        routesVersion = -1;
+    }
+
+    @Override
+    @Nullable
+    public String value() {
+        return value;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        processor.unsubscribe(this);
+    }
+}
@@ -0,0 +1,75 @@
+package fr.robotv2.placeholderannotationlib.impl;
+
+import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
+import fr.robotv2.placeholderannotationlib.api.BasePlaceholder;
+import fr.robotv2.placeholderannotationlib.api.PublishedPlaceholder;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PublishedPlaceholderImpl implements BasePlaceholder, PublishedPlaceholder {
+
+    private final Map<UUID, String> players = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile String value;
+
+    @Override
+    public Placeholder getPlaceholder() {
+        return null;
+    }
+
+    @Override
+    public boolean isDefault() {
+        return false;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    @Override
+    public boolean requiresOnlinePlayer() {
+        return false;
+    }
+
+    @Override
+    public String process(OfflinePlayer player, String[] params) {
+        return get(player != null ? player.getUniqueId() : null);
+    }
+
+    @Override
+    public void publish(@Nullable String value) {
+        this.value = value;
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void publish(UUID player, @Nullable String value) {
+        if (value == null) {
+            players.remove(player);
+        } else {
+            players.put(player, value);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return a number that changes every time a value is published, for any player.
+     */
+    long version() {
+        return version.get();
+    }
+
+    @Override
+    @Nullable
+    public String get(@Nullable UUID player) {
+        // Lookups in an empty map return as soon as they read its table, so global slots stay a volatile read away.
+        final String published = player != null ? players.get(player) : null;
+        return published != null ? published : value;
+    }
+}
@@ -0,0 +1,40 @@
+package fr.robotv2.placeholderannotationlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.bukkit.OfflinePlayer;
+
+@Name("fr.robotv2.placeholderannotationlib.ArgumentResolution")
+@Label("Placeholder Argument Resolution")
+@Description("Conversion of the placeholder arguments, and injected dependencies, to method parameters")
+@Category("PlaceholderAnnotationLib")
+@StackTrace(false)
+public final class PlaceholderArgumentsEvent extends jdk.jfr.Event {
+
+    @Label("Placeholder")
+    String placeholder;
+
+    @Label("Player")
+    @Description("The UUID of the player")
+    String player;
+
+    @Label("Arguments")
+    int arguments;
+
+    @Label("Resolved")
+    @Description("Whether every parameter could be resolved")
+    boolean resolved;
+
+    public void complete(String placeholder, OfflinePlayer player, int arguments, boolean resolved) {
+        if (shouldCommit()) {
+            this.placeholder = placeholder;
+            this.player = PlaceholderEvents.describe(player);
+            this.arguments = arguments;
+            this.resolved = resolved;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package fr.robotv2.placeholderannotationlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.bukkit.OfflinePlayer;
+
+@Name("fr.robotv2.placeholderannotationlib.CacheLookup")
+@Label("Placeholder Cache Lookup")
+@Description("Lookup of a cached placeholder result")
+@Category("PlaceholderAnnotationLib")
+@StackTrace(false)
+public final class PlaceholderCacheEvent extends jdk.jfr.Event {
+
+    @Label("Placeholder")
+    String placeholder;
+
+    @Label("Player")
+    @Description("The UUID of the player")
+    String player;
+
+    @Label("Cache Hit")
+    boolean hit;
+
+    public void complete(String placeholder, OfflinePlayer player, boolean hit) {
+        if (shouldCommit()) {
+            this.placeholder = placeholder;
+            this.player = PlaceholderEvents.describe(player);
+            this.hit = hit;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package fr.robotv2.placeholderannotationlib.jfr;
+
+import org.bukkit.OfflinePlayer;
+
+/**
+ * Java Flight Recorder events emitted by the processor when built with
+ * {@code flightRecorder(true)}. They only cost something while a recording is running.
+ */
+final class PlaceholderEvents {
+
+    private PlaceholderEvents() {
+    }
+
+    /**
+     * @return the UUID of the player. Not its name, which may have to be read from disk for an offline player.
+     */
+    static String describe(OfflinePlayer player) {
+        return player != null ? player.getUniqueId().toString() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package fr.robotv2.placeholderannotationlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.bukkit.OfflinePlayer;
+
+@Name("fr.robotv2.placeholderannotationlib.Invocation")
+@Label("Placeholder Invocation")
+@Description("Invocation of a placeholder method and formatting of its result")
+@Category("PlaceholderAnnotationLib")
+@StackTrace(false)
+public final class PlaceholderInvocationEvent extends jdk.jfr.Event {
+
+    @Label("Placeholder")
+    String placeholder;
+
+    @Label("Player")
+    @Description("The UUID of the player")
+    String player;
+
+    @Label("Method")
+    String method;
+
+    public void complete(String placeholder, OfflinePlayer player, String method) {
+        if (shouldCommit()) {
+            this.placeholder = placeholder;
+            this.player = PlaceholderEvents.describe(player);
+            this.method = method;
+            commit();
+        }
+    }
+}
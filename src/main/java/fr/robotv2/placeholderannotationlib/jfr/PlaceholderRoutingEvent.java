@@ -0,0 +1,36 @@
+package fr.robotv2.placeholderannotationlib.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.bukkit.OfflinePlayer;
+
+@Name("fr.robotv2.placeholderannotationlib.Routing")
+@Label("Placeholder Routing")
+@Description("Matching of the requested params to a registered placeholder")
+@Category("PlaceholderAnnotationLib")
+@StackTrace(false)
+public final class PlaceholderRoutingEvent extends jdk.jfr.Event {
+
+    @Label("Params")
+    String params;
+
+    @Label("Placeholder")
+    @Description("The matched placeholder id, null when nothing matched")
+    String placeholder;
+
+    @Label("Player")
+    @Description("The UUID of the player")
+    String player;
+
+    public void complete(String params, String placeholder, OfflinePlayer player) {
+        if (shouldCommit()) {
+            this.params = params;
+            this.placeholder = placeholder;
+            this.player = PlaceholderEvents.describe(player);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A time to live that follows how often a cached result changes: it grows by half each time
+ * a recomputation returns the same result, and halves each time the result changed, so a burst
+ * of changes shortens it much faster than a quiet period lengthens it.
+ */
+public final class AdaptiveTtl {
+
+    private final long minNanos;
+    private final long maxNanos;
+    private final AtomicLong nanos;
+
+    public AdaptiveTtl(long initialNanos, long minNanos, long maxNanos) {
+        if (minNanos <= 0 || minNanos > maxNanos) {
+            throw new IllegalArgumentException("Invalid adaptive time to live bounds: " + minNanos + "ns to " + maxNanos + "ns");
+        }
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.nanos = new AtomicLong(clamp(initialNanos));
+    }
+
+    public long nanos() {
+        return nanos.get();
+    }
+
+    /**
+     * Records whether a recomputation returned a different result than the previous one.
+     */
+    public void observe(boolean changed) {
+        nanos.updateAndGet(current -> clamp(changed ? current / 2 : current + current / 2));
+    }
+
+    private long clamp(long value) {
+        return Math.max(minNanos, Math.min(maxNanos, value));
+    }
+}
@@ -0,0 +1,170 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import fr.robotv2.placeholderannotationlib.api.PlaceholderCacheBackend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Saves the entries of a {@link PlaceholderCacheBackend} to a file with their expiry, and loads back
+ * the ones that are still valid, so cached placeholders survive a restart.
+ * <p>
+ * The file is written to a temporary sibling first and then moved over the previous snapshot,
+ * so a crash while saving never leaves a truncated snapshot behind, atomically where the file system
+ * supports it. The temporary file is deleted if the write or the move fails. A snapshot whose lengths
+ * do not fit in the file is rejected as corrupt when loaded.
+ */
+public final class CacheSnapshot {
+
+    private static final int MAGIC = 0x50414C43; // "PALC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8; // Magic and version.
+    private static final int ENTRY_BYTES = 1 + 3 * 8; // Marker, UUID and expiry, before the strings.
+
+    private CacheSnapshot() {
+    }
+
+    /**
+     * @return the number of entries written.
+     */
+    public static int save(PlaceholderCacheBackend cache, Path file) throws IOException {
+        return save(cache, file, placeholder -> true);
+    }
+
+    /**
+     * Writes only the entries whose placeholder key matches, such as the keys of one processor
+     * when its backend is shared with others.
+     *
+     * @return the number of entries written.
+     */
+    public static int save(PlaceholderCacheBackend cache, Path file, Predicate<String> placeholders) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            final int written = write(cache, temporary, placeholders);
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+            return written;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private static int write(PlaceholderCacheBackend cache, Path temporary, Predicate<String> placeholders) throws IOException {
+        final int[] written = {0};
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+
+            final IOException[] failure = {null};
+            cache.forEachEntry((uuid, placeholder, result, expiresAt) -> {
+                if (failure[0] != null || !placeholders.test(placeholder)) {
+                    return;
+                }
+
+                try {
+                    output.writeBoolean(true);
+                    output.writeLong(uuid.getMostSignificantBits());
+                    output.writeLong(uuid.getLeastSignificantBits());
+                    output.writeLong(expiresAt);
+                    writeString(output, placeholder);
+                    writeString(output, result);
+                    written[0]++;
+                } catch (IOException exception) {
+                    failure[0] = exception;
+                }
+            });
+
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            output.writeBoolean(false);
+        }
+        return written[0];
+    }
+
+    /**
+     * Loads every entry of the snapshot that has not expired yet. Does nothing if the file does not exist.
+     *
+     * @return the number of entries restored.
+     */
+    public static int load(PlaceholderCacheBackend cache, Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        int restored = 0;
+        long unread = Files.size(file) - HEADER_BYTES;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a placeholder cache snapshot: " + file);
+            }
+
+            while (input.readBoolean()) {
+                final UUID uuid = new UUID(input.readLong(), input.readLong());
+                final long expiresAt = input.readLong();
+                unread -= ENTRY_BYTES;
+
+                final byte[] placeholder = readBytes(input, unread, file);
+                unread -= 4 + placeholder.length;
+                final byte[] result = readBytes(input, unread, file);
+                unread -= 4 + result.length;
+
+                final long remaining = expiresAt - System.currentTimeMillis();
+                if (remaining > 0) {
+                    cache.cache(uuid, new String(placeholder, StandardCharsets.UTF_8), new String(result, StandardCharsets.UTF_8),
+                            remaining, TimeUnit.MILLISECONDS);
+                    restored++;
+                }
+            }
+        } catch (EOFException exception) {
+            throw new IOException("Truncated placeholder cache snapshot: " + file, exception);
+        }
+
+        return restored;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * @param unread the number of bytes left in the file, from the length prefix on.
+     */
+    private static byte[] readBytes(DataInputStream input, long unread, Path file) throws IOException {
+        final int length = input.readInt();
+        // Checked before allocating, a corrupt length could otherwise exhaust the heap.
+        if (length < 0 || length > unread - 4) {
+            throw new IOException("Corrupt placeholder cache snapshot: " + file);
+        }
+
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+}
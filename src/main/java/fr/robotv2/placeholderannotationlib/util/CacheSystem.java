@@ -4,28 +4,139 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
 import fr.robotv2.placeholderannotationlib.annotations.Cache;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderCacheBackend;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
-public enum CacheSystem {
+/**
+ * The default {@link PlaceholderCacheBackend}, shared by every processor of the plugin.
+ * <p>
+ * Each entry is dropped by a task scheduled on its expiry. The task is cancelled as soon as the entry
+ * is replaced or invalidated, and the expiry thread is a daemon that stops once no task is pending,
+ * so nothing outlives the entries of an unregistered expansion or keeps a reloaded plugin alive.
+ */
+public enum CacheSystem implements PlaceholderCacheBackend {
 
     INSTANCE;
 
-    private final ScheduledExecutorService CACHE_POOL = Executors.newSingleThreadScheduledExecutor();
-    private final Table<UUID, String, String> cache = Tables.synchronizedTable(HashBasedTable.create());
+    private static final long IDLE_SECONDS = 30;
+
+    private final ScheduledThreadPoolExecutor CACHE_POOL = createPool();
+    private final Table<UUID, String, Entry> cache = Tables.synchronizedTable(HashBasedTable.create());
 
     public boolean isCached(UUID uuid, String placeholder) {
         return getCache(uuid, placeholder) != null;
     }
 
+    @Override
     public String getCache(UUID uuid, String placeholder) {
-        return this.cache.get(uuid, placeholder);
+        final Entry entry = this.cache.get(uuid, placeholder);
+        return entry != null ? entry.result : null;
     }
 
     public void cache(UUID uuid, String placeholder, String result, Cache cache) {
-        this.cache.put(uuid, placeholder, result);
-        this.CACHE_POOL.schedule(() -> this.cache.remove(uuid, placeholder), cache.value(), cache.unit());
+        cache(uuid, placeholder, result, cache.value(), cache.unit());
+    }
+
+    @Override
+    public void cache(UUID uuid, String placeholder, String result, long duration, TimeUnit unit) {
+        final Entry entry = new Entry(result, System.currentTimeMillis() + unit.toMillis(duration));
+        synchronized (this.cache) {
+            final Entry previous = this.cache.put(uuid, placeholder, entry);
+            if (previous != null) {
+                previous.cancel();
+            }
+            entry.expiry = this.CACHE_POOL.schedule(() -> expire(uuid, placeholder, entry), duration, unit);
+        }
+    }
+
+    @Override
+    public void forEachEntry(EntryVisitor visitor) {
+        final List<Table.Cell<UUID, String, Entry>> cells;
+        synchronized (this.cache) {
+            cells = new ArrayList<>(this.cache.cellSet());
+        }
+
+        final long now = System.currentTimeMillis();
+        for (Table.Cell<UUID, String, Entry> cell : cells) {
+            final Entry entry = cell.getValue();
+            if (entry.expiresAt > now) {
+                visitor.visit(cell.getRowKey(), cell.getColumnKey(), entry.result, entry.expiresAt);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(Predicate<String> placeholder) {
+        synchronized (this.cache) {
+            final Iterator<Table.Cell<UUID, String, Entry>> cells = this.cache.cellSet().iterator();
+            while (cells.hasNext()) {
+                final Table.Cell<UUID, String, Entry> cell = cells.next();
+                if (placeholder.test(cell.getColumnKey())) {
+                    cell.getValue().cancel();
+                    cells.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries waiting for their expiry.
+     */
+    public int pendingExpiries() {
+        return CACHE_POOL.getQueue().size();
+    }
+
+    /**
+     * Runs the task on the expiry thread after the delay. The task must be short.
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return CACHE_POOL.schedule(task, delay, unit);
+    }
+
+    private void expire(UUID uuid, String placeholder, Entry entry) {
+        // The result may have been cached again since, with its own expiry.
+        synchronized (this.cache) {
+            if (this.cache.get(uuid, placeholder) == entry) {
+                this.cache.remove(uuid, placeholder);
+            }
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createPool() {
+        final ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, task -> {
+            final Thread thread = new Thread(task, "PALib-CacheSystem");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        pool.setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static final class Entry {
+
+        private final String result;
+        private final long expiresAt;
+        private ScheduledFuture<?> expiry; // Guarded by the table.
+
+        private Entry(String result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+
+        private void cancel() {
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+        }
     }
 }
@@ -0,0 +1,383 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import fr.robotv2.placeholderannotationlib.api.PlaceholderCacheBackend;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A {@link PlaceholderCacheBackend} tuned for a large number of small results.
+ * <p>
+ * Players and placeholder keys are mapped once to integer slots, and entries live in an
+ * open-addressed table made of primitive arrays keyed by {@code (player slot, placeholder ordinal)}.
+ * Results are stored as Latin-1 bytes when possible (UTF-8 otherwise) and only decoded back
+ * to a string on hit. Expired entries are dropped lazily instead of through one scheduled task
+ * per entry, so an entry costs two longs, one byte and its encoded bytes.
+ * <p>
+ * Slots and ordinals are counted per live entry and released, to be reused, along with the last
+ * entry using them, so keys with per-player arguments do not accumulate once their entries expire.
+ */
+public final class CompactCacheSystem implements PlaceholderCacheBackend {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private static final byte LATIN1 = 0;
+    private static final byte UTF8 = 1;
+
+    // Everything is guarded by this. A key of 0 marks an empty bucket, slots and ordinals therefore start at 1.
+    private final Ids<UUID> playerSlots = new Ids<>();
+    private final Ids<String> placeholderOrdinals = new Ids<>();
+    private long[] keys;
+    private long[] deadlines;
+    private byte[][] values;
+    private byte[] coders;
+    private int size;
+
+    public CompactCacheSystem() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    @Nullable
+    public String getCache(UUID uuid, String placeholder) {
+        final byte[] bytes;
+        final byte coder;
+
+        synchronized (this) {
+            // Looked up under the lock: a released slot or ordinal may be reused for another key.
+            final int slot = playerSlots.find(uuid);
+            final int ordinal = slot != 0 ? placeholderOrdinals.find(placeholder) : 0;
+            if (ordinal == 0) {
+                return null;
+            }
+
+            final int index = indexOf(pack(slot, ordinal));
+            if (index < 0) {
+                return null;
+            }
+
+            if (deadlines[index] - System.nanoTime() <= 0) {
+                removeAt(index);
+                return null;
+            }
+
+            bytes = values[index];
+            coder = coders[index];
+        }
+
+        return new String(bytes, coder == LATIN1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void cache(UUID uuid, String placeholder, String result, long duration, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(duration);
+        final boolean latin1 = isLatin1(result);
+        final byte[] bytes = result.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+
+        synchronized (this) {
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                // Done first, as it may release the slot or ordinal of expired entries.
+                rehash();
+            }
+
+            final int slot = playerSlots.acquire(uuid);
+            final int ordinal = placeholderOrdinals.acquire(placeholder);
+            final long key = pack(slot, ordinal);
+            int index = indexOf(key);
+            if (index < 0) {
+                index = insertionIndex(key);
+                keys[index] = key;
+                playerSlots.retain(slot);
+                placeholderOrdinals.retain(ordinal);
+                size++;
+            }
+
+            deadlines[index] = deadline;
+            values[index] = bytes;
+            coders[index] = latin1 ? LATIN1 : UTF8;
+        }
+    }
+
+    @Override
+    public void forEachEntry(EntryVisitor visitor) {
+        final List<Visit> visits = new ArrayList<>();
+        final long nanoTime = System.nanoTime();
+        final long millis = System.currentTimeMillis();
+
+        synchronized (this) {
+            for (int i = 0; i < keys.length; i++) {
+                final long remaining = deadlines[i] - nanoTime;
+                if (keys[i] == 0L || remaining <= 0) {
+                    continue;
+                }
+
+                visits.add(new Visit(playerSlots.key((int) (keys[i] >>> 32)), placeholderOrdinals.key((int) keys[i]),
+                        values[i], coders[i], millis + TimeUnit.NANOSECONDS.toMillis(remaining)));
+            }
+        }
+
+        // Visited outside of the lock, visitors may be slow such as when writing a snapshot.
+        for (Visit visit : visits) {
+            final String result = new String(visit.value(), visit.coder() == LATIN1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            visitor.visit(visit.uuid(), visit.placeholder(), result, visit.expiresAt());
+        }
+    }
+
+    @Override
+    public void invalidate(Predicate<String> placeholder) {
+        synchronized (this) {
+            final BitSet ordinals = placeholderOrdinals.matching(placeholder);
+            if (ordinals.isEmpty()) {
+                return;
+            }
+
+            // Removing shifts later entries back, so the same index is checked again afterwards.
+            for (int index = 0; index < keys.length; ) {
+                if (keys[index] != 0L && ordinals.get((int) keys[index])) {
+                    removeAt(index);
+                } else {
+                    index++;
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of players with at least one entry.
+     */
+    public synchronized int players() {
+        return playerSlots.size();
+    }
+
+    /**
+     * @return the number of placeholder keys with at least one entry.
+     */
+    public synchronized int placeholderKeys() {
+        return placeholderOrdinals.size();
+    }
+
+    public synchronized void clear() {
+        allocate(INITIAL_CAPACITY);
+        playerSlots.clear();
+        placeholderOrdinals.clear();
+    }
+
+    private int indexOf(long key) {
+        final int mask = keys.length - 1;
+        for (int index = bucket(key, mask); ; index = (index + 1) & mask) {
+            final long current = keys[index];
+            if (current == key) {
+                return index;
+            }
+            if (current == 0L) {
+                return -1;
+            }
+        }
+    }
+
+    private int insertionIndex(long key) {
+        final int mask = keys.length - 1;
+        int index = bucket(key, mask);
+        while (keys[index] != 0L) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Removes the entry at the given index, shifting back the entries of its probe
+     * sequence so lookups never need tombstones.
+     */
+    private void removeAt(int index) {
+        release(keys[index]);
+
+        final int mask = keys.length - 1;
+        int gap = index;
+        for (int current = (index + 1) & mask; keys[current] != 0L; current = (current + 1) & mask) {
+            final int home = bucket(keys[current], mask);
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = keys[current];
+                deadlines[gap] = deadlines[current];
+                values[gap] = values[current];
+                coders[gap] = coders[current];
+                gap = current;
+            }
+        }
+
+        keys[gap] = 0L;
+        values[gap] = null;
+        size--;
+    }
+
+    /**
+     * Drops expired entries, and doubles the table if it is still too full afterwards.
+     */
+    private void rehash() {
+        final long now = System.nanoTime();
+        final long[] oldKeys = keys;
+        final long[] oldDeadlines = deadlines;
+        final byte[][] oldValues = values;
+        final byte[] oldCoders = coders;
+
+        int live = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0L) {
+                if (oldDeadlines[i] - now > 0) {
+                    live++;
+                } else {
+                    release(oldKeys[i]);
+                }
+            }
+        }
+
+        allocate(live + 1 > oldKeys.length * LOAD_FACTOR ? oldKeys.length * 2 : oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0L && oldDeadlines[i] - now > 0) {
+                final int index = insertionIndex(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                deadlines[index] = oldDeadlines[i];
+                values[index] = oldValues[i];
+                coders[index] = oldCoders[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.deadlines = new long[capacity];
+        this.values = new byte[capacity][];
+        this.coders = new byte[capacity];
+        this.size = 0;
+    }
+
+    private void release(long key) {
+        playerSlots.release((int) (key >>> 32));
+        placeholderOrdinals.release((int) key);
+    }
+
+    private static long pack(int slot, int ordinal) {
+        return ((long) slot << 32) | (ordinal & 0xFFFFFFFFL);
+    }
+
+    private static int bucket(long key, int mask) {
+        // Murmur3 finalizer, slots and ordinals are sequential and would otherwise cluster.
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Visit(UUID uuid, String placeholder, byte[] value, byte coder, long expiresAt) {
+    }
+
+    /**
+     * Maps keys to small integer ids, counting the entries using each id. An id is released with
+     * its last entry, and reused by the next new key. Not thread-safe.
+     */
+    private static final class Ids<K> {
+
+        private final Map<K, Integer> ids = new HashMap<>();
+        private Object[] keys = new Object[64];
+        private int[] uses = new int[64];
+        private int[] free = new int[16];
+        private int freeCount;
+        private int next = 1;
+
+        /**
+         * @return the id of the key, or 0 if it has none.
+         */
+        private int find(K key) {
+            final Integer id = ids.get(key);
+            return id != null ? id : 0;
+        }
+
+        /**
+         * @return the id of the key, assigned if it has none. It is released again unless {@link #retain(int) retained}.
+         */
+        private int acquire(K key) {
+            final Integer existing = ids.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            final int id = freeCount > 0 ? free[--freeCount] : next++;
+            if (id >= keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                uses = Arrays.copyOf(uses, uses.length * 2);
+            }
+            keys[id] = key;
+            ids.put(key, id);
+            return id;
+        }
+
+        private void retain(int id) {
+            uses[id]++;
+        }
+
+        private void release(int id) {
+            if (--uses[id] > 0) {
+                return;
+            }
+
+            ids.remove(keys[id]);
+            keys[id] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeCount++] = id;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K key(int id) {
+            return (K) keys[id];
+        }
+
+        private BitSet matching(Predicate<? super K> predicate) {
+            final BitSet matching = new BitSet();
+            ids.forEach((key, id) -> {
+                if (predicate.test(key)) {
+                    matching.set(id);
+                }
+            });
+            return matching;
+        }
+
+        private int size() {
+            return ids.size();
+        }
+
+        private void clear() {
+            ids.clear();
+            keys = new Object[64];
+            uses = new int[64];
+            freeCount = 0;
+            next = 1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import fr.robotv2.placeholderannotationlib.api.SharedCacheStore;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A {@link SharedCacheStore} living in the current JVM. Sharing one instance between several
+ * processors stands in for a network-wide store in tests and in the load simulator.
+ * <p>
+ * Expired values are dropped lazily when they are read.
+ */
+public final class InMemorySharedCacheStore implements SharedCacheStore {
+
+    private final Map<ByteBuffer, Stored> values = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+
+    @Override
+    @Nullable
+    public byte[] get(byte[] key) {
+        final ByteBuffer wrapped = ByteBuffer.wrap(key);
+        final Stored stored = values.get(wrapped);
+        if (stored == null) {
+            return null;
+        }
+
+        if (stored.deadline() - System.nanoTime() <= 0) {
+            values.remove(wrapped, stored);
+            return null;
+        }
+        return stored.value();
+    }
+
+    @Override
+    public void putAll(List<Write> writes) {
+        batches.increment();
+        final long now = System.nanoTime();
+        for (Write write : writes) {
+            values.put(ByteBuffer.wrap(write.key()), new Stored(write.value(), now + TimeUnit.MILLISECONDS.toNanos(write.timeToLiveMillis())));
+        }
+    }
+
+    @Override
+    public void invalidate(Predicate<byte[]> keys) {
+        values.keySet().removeIf(key -> keys.test(key.array()));
+    }
+
+    /**
+     * @return how many batches were written so far.
+     */
+    public long batches() {
+        return batches.sum();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    private record Stored(byte[] value, long deadline) {
+    }
+}
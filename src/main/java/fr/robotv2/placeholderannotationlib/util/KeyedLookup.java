@@ -0,0 +1,89 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable, case-insensitive lookup table from a finite set of keys to values.
+ * <p>
+ * Keys are hashed and compared character by character while ignoring case, so a lookup
+ * never allocates (no {@code toUpperCase()} copy) and a miss is a plain {@code null}.
+ */
+public final class KeyedLookup<T> {
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    private KeyedLookup(Map<String, ? extends T> entries) {
+        int capacity = 2;
+        while (capacity < entries.size() * 2) {
+            capacity <<= 1;
+        }
+
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+
+        for (Map.Entry<String, ? extends T> entry : entries.entrySet()) {
+            final String key = entry.getKey();
+            int index = hash(key, 0, key.length()) & mask;
+            while (keys[index] != null && !keys[index].equalsIgnoreCase(key)) {
+                index = (index + 1) & mask;
+            }
+
+            // The first of two keys differing only by case wins.
+            if (keys[index] == null) {
+                keys[index] = key;
+                values[index] = entry.getValue();
+            }
+        }
+    }
+
+    public static <T> KeyedLookup<T> of(Map<String, ? extends T> entries) {
+        return new KeyedLookup<>(entries);
+    }
+
+    public static <E extends Enum<E>> KeyedLookup<E> ofEnum(Class<E> enumClass) {
+        final Map<String, E> entries = new LinkedHashMap<>();
+        for (E constant : enumClass.getEnumConstants()) {
+            entries.put(constant.name(), constant);
+        }
+        return new KeyedLookup<>(entries);
+    }
+
+    @Nullable
+    public T get(String key) {
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * Looks up the region of {@code source} from {@code from} (inclusive) to {@code to} (exclusive),
+     * without extracting it.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get(String source, int from, int to) {
+        final int length = to - from;
+        for (int index = hash(source, from, to) & mask; ; index = (index + 1) & mask) {
+            final String current = keys[index];
+            if (current == null) {
+                return null;
+            }
+            if (current.length() == length && current.regionMatches(true, 0, source, from, length)) {
+                return (T) values[index];
+            }
+        }
+    }
+
+    private static int hash(String source, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            // Same folding as String#equalsIgnoreCase.
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(source.charAt(i)));
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,260 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resolves players and worlds by name without ever blocking on a profile lookup.
+ * <p>
+ * Names are mapped to UUIDs through an index kept up to date on join and quit once registered as
+ * a listener, and {@link #preload(Executor) preloaded} off the caller's thread from the players known
+ * by the server, at the latest on the first player resolved. Resolution then only goes through UUID
+ * lookups. A player seen under a new name is no longer indexed under the old one.
+ * <p>
+ * An offline player whose name is not indexed, such as one the preload has not reached yet, resolves
+ * to {@code null} while {@link Bukkit#getOfflinePlayer(String)} looks the name up off the caller's thread.
+ * A player who played before is then indexed and resolves from the next request on. Names looked up
+ * are not looked up again until a player joins under them, up to 1024 of them. Online players are
+ * only searched by partial name for names that are not indexed.
+ * <p>
+ * Resolved arguments are memoized as given, up to 1024 of them.
+ */
+public final class PlayerIndex implements Listener {
+
+    private static final int MAX_RESOLVED = 1024;
+    private static final int MAX_LOOKED_UP = 1024;
+    private static final long IDLE_SECONDS = 30;
+
+    private static final Executor LOOKUP_POOL = createPool();
+
+    private final Supplier<OfflinePlayer[]> knownPlayers;
+    private final Function<String, OfflinePlayer> lookup;
+    private final Map<String, UUID> players = new ConcurrentHashMap<>();
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+    private final Map<String, UUID> resolved = new ConcurrentHashMap<>();
+    private final Set<String> lookedUp = ConcurrentHashMap.newKeySet();
+    private final Map<String, UUID> worlds = new ConcurrentHashMap<>();
+    private volatile Executor executor;
+    private volatile boolean preloading = false;
+    private volatile boolean preloaded = false;
+
+    public PlayerIndex() {
+        this(Bukkit::getOfflinePlayers);
+    }
+
+    /**
+     * @param knownPlayers the players known by the server, read once by {@link #preload(Executor)}.
+     */
+    public PlayerIndex(Supplier<OfflinePlayer[]> knownPlayers) {
+        this(knownPlayers, Bukkit::getOfflinePlayer, LOOKUP_POOL);
+    }
+
+    /**
+     * @param lookup resolves a name that is not indexed, possibly blocking. Only called on the executor.
+     * @param executor runs the preload and the lookups, unless {@link #preload(Executor)} is given another.
+     */
+    public PlayerIndex(Supplier<OfflinePlayer[]> knownPlayers, Function<String, OfflinePlayer> lookup, Executor executor) {
+        this.knownPlayers = knownPlayers;
+        this.lookup = lookup;
+        this.executor = executor;
+    }
+
+    /**
+     * Indexes the players known by the server on the given executor, which then also runs the lookups
+     * of names that are not indexed. Lookups never wait for it.
+     */
+    public CompletableFuture<Void> preload(Executor executor) {
+        this.executor = executor;
+        this.preloading = true;
+        return CompletableFuture.runAsync(() -> {
+            for (OfflinePlayer player : knownPlayers.get()) {
+                indexKnown(player);
+            }
+            preloaded = true;
+        }, executor);
+    }
+
+    public boolean isPreloaded() {
+        return preloaded;
+    }
+
+    /**
+     * @return the UUID indexed under the name, ignoring case, or {@code null} if there is none.
+     */
+    @Nullable
+    public UUID getUniqueId(String name) {
+        final UUID memo = resolved.get(name);
+        if (memo != null) {
+            return memo;
+        }
+
+        final UUID uuid = players.get(name.toLowerCase(Locale.ROOT));
+        if (uuid != null) {
+            if (resolved.size() >= MAX_RESOLVED) {
+                resolved.clear();
+            }
+            resolved.put(name, uuid);
+        }
+        return uuid;
+    }
+
+    @Nullable
+    public Player getPlayer(String name) {
+        startPreload();
+        final UUID uuid = getUniqueId(name);
+        if (uuid != null) {
+            return Bukkit.getPlayer(uuid); // Indexed, so no other online player goes by this name.
+        }
+
+        // Keeps the partial name matching of Bukkit#getPlayer(String) for online players.
+        final Player online = Bukkit.getPlayer(name);
+        if (online != null) {
+            index(online);
+        }
+        return online;
+    }
+
+    @Nullable
+    public OfflinePlayer getOfflinePlayer(String name) {
+        startPreload();
+        final UUID uuid = getUniqueId(name);
+        if (uuid == null) {
+            final Player online = Bukkit.getPlayerExact(name);
+            if (online != null) {
+                index(online);
+                return online;
+            }
+            lookUp(name);
+            return null;
+        }
+
+        final Player online = Bukkit.getPlayer(uuid);
+        return online != null ? online : Bukkit.getOfflinePlayer(uuid);
+    }
+
+    @Nullable
+    public World getWorld(String name) {
+        final String key = name.toLowerCase(Locale.ROOT);
+        final UUID uuid = worlds.get(key);
+        if (uuid != null) {
+            final World world = Bukkit.getWorld(uuid);
+            if (world != null) {
+                return world;
+            }
+            worlds.remove(key, uuid); // Unloaded since.
+        }
+
+        final World world = Bukkit.getWorld(name);
+        if (world != null) {
+            worlds.put(key, world.getUID());
+        }
+        return world;
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        index(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        index(event.getPlayer());
+    }
+
+    private void startPreload() {
+        if (!preloading) {
+            preload(executor);
+        }
+    }
+
+    private void lookUp(String name) {
+        final String key = name.toLowerCase(Locale.ROOT);
+        if (lookedUp.size() >= MAX_LOOKED_UP) {
+            lookedUp.clear();
+        }
+        if (!lookedUp.add(key)) {
+            return;
+        }
+
+        executor.execute(() -> {
+            final OfflinePlayer player = lookup.apply(name);
+            if (player != null && player.hasPlayedBefore()) {
+                indexKnown(player);
+            }
+        });
+    }
+
+    private synchronized void index(OfflinePlayer player) {
+        final String name = player.getName();
+        if (name == null) {
+            return;
+        }
+
+        final String key = name.toLowerCase(Locale.ROOT);
+        lookedUp.remove(key);
+        final UUID uuid = player.getUniqueId();
+        final String previous = names.put(uuid, key);
+        if (previous != null && !previous.equals(key)) {
+            // Renamed: the old name is free again, or already taken by someone else.
+            players.remove(previous, uuid);
+            forget(uuid);
+        }
+
+        final UUID owner = players.put(key, uuid);
+        if (owner != null && !owner.equals(uuid)) {
+            // The name was taken over from a player who renamed since.
+            names.remove(owner, key);
+            forget(owner);
+        }
+    }
+
+    private synchronized void indexKnown(OfflinePlayer player) {
+        // Players indexed on join meanwhile are more recent than the server's cache.
+        final String name = player.getName();
+        if (name != null && !names.containsKey(player.getUniqueId())) {
+            final String key = name.toLowerCase(Locale.ROOT);
+            if (players.putIfAbsent(key, player.getUniqueId()) == null) {
+                names.put(player.getUniqueId(), key);
+            }
+        }
+    }
+
+    private void forget(UUID uuid) {
+        resolved.values().removeIf(uuid::equals);
+    }
+
+    private static Executor createPool() {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            final Thread thread = new Thread(task, "PALib-PlayerIndex");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
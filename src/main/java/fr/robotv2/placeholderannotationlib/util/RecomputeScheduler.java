@@ -0,0 +1,155 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import fr.robotv2.placeholderannotationlib.annotations.CostClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spreads the recomputation of expensive placeholders across ticks: each {@link #tick()} runs queued
+ * recomputations until its nanosecond budget is spent, moderate ones first.
+ * <p>
+ * A tick always runs at least one recomputation, so the backlog drains even when a single one
+ * exceeds the budget. A recomputation that throws is logged and does not stop the tick.
+ */
+public final class RecomputeScheduler {
+
+    private final long budgetNanos;
+    private final Logger logger;
+    private final Queue<Recomputation> moderate = new ConcurrentLinkedQueue<>();
+    private final Queue<Recomputation> expensive = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    public RecomputeScheduler(long budget, TimeUnit unit) {
+        this(budget, unit, Logger.getLogger("PALib"));
+    }
+
+    public RecomputeScheduler(long budget, TimeUnit unit, Logger logger) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Tick budget must be positive");
+        }
+        this.budgetNanos = unit.toNanos(budget);
+        this.logger = logger;
+    }
+
+    public void submit(CostClass cost, Runnable recomputation) {
+        submit(cost, null, recomputation);
+    }
+
+    /**
+     * @param owner what the recomputation belongs to, to {@link #cancel(Object) cancel} it along with its owner.
+     */
+    public void submit(CostClass cost, Object owner, Runnable recomputation) {
+        if (cost == CostClass.CHEAP) {
+            throw new IllegalArgumentException("Cheap placeholders are not scheduled");
+        }
+
+        backlog.incrementAndGet();
+        (cost == CostClass.MODERATE ? moderate : expensive).add(new Recomputation(owner, recomputation));
+    }
+
+    /**
+     * Drops the queued recomputations of the given owner.
+     *
+     * @return the number of recomputations dropped.
+     */
+    public int cancel(Object owner) {
+        return cancel(moderate, owner) + cancel(expensive, owner);
+    }
+
+    /**
+     * Drops every queued recomputation.
+     */
+    public void clear() {
+        for (Recomputation recomputation = moderate.poll(); recomputation != null; recomputation = moderate.poll()) {
+            backlog.decrementAndGet();
+        }
+        for (Recomputation recomputation = expensive.poll(); recomputation != null; recomputation = expensive.poll()) {
+            backlog.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs queued recomputations until the budget of this tick is spent.
+     *
+     * @return the number of recomputations run.
+     */
+    public int tick() {
+        final long start = System.nanoTime();
+        int ran = 0;
+
+        do {
+            Recomputation recomputation = moderate.poll();
+            if (recomputation == null) {
+                recomputation = expensive.poll();
+            }
+            if (recomputation == null) {
+                break;
+            }
+
+            backlog.decrementAndGet();
+            try {
+                recomputation.task().run();
+            } catch (RuntimeException exception) {
+                logger.log(Level.SEVERE, "Error recomputing a placeholder", exception);
+            }
+            ran++;
+        } while (System.nanoTime() - start < budgetNanos);
+
+        return ran;
+    }
+
+    /**
+     * @return the number of recomputations waiting for a tick.
+     */
+    public int backlog() {
+        return backlog.get();
+    }
+
+    private int cancel(Queue<Recomputation> queue, Object owner) {
+        final List<Recomputation> owned = new ArrayList<>();
+        for (Recomputation recomputation : queue) {
+            if (recomputation.owner() == owner) {
+                owned.add(recomputation);
+            }
+        }
+
+        int cancelled = 0;
+        for (Recomputation recomputation : owned) {
+            // A tick may have polled it meanwhile.
+            if (queue.remove(recomputation)) {
+                backlog.decrementAndGet();
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Compares by identity, so removing one never removes an equal one submitted separately.
+     */
+    private static final class Recomputation {
+
+        private final Object owner;
+        private final Runnable task;
+
+        private Recomputation(Object owner, Runnable task) {
+            this.owner = owner;
+            this.task = task;
+        }
+
+        private Object owner() {
+            return owner;
+        }
+
+        private Runnable task() {
+            return task;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.util.Locale;
+
+/**
+ * Turns placeholder results into strings, applying the {@link Placeholder#format()} and
+ * {@link Placeholder#compact()} settings declared on the placeholder.
+ * <p>
+ * Formats and output buffers are kept per thread, so formatting a number does not
+ * allocate anything besides the resulting string, and small integers without a format
+ * are not even allocated. Only JDK types are kept in thread locals, so the server's
+ * threads never keep the plugin's class loader alive after a reload.
+ */
+public final class ResultFormatter {
+
+    private static final ResultFormatter PLAIN = new ResultFormatter(null, false);
+
+    private static final String COMPACT_PATTERN = "0.#";
+    private static final char[] COMPACT_SUFFIXES = {'k', 'M', 'B', 'T'};
+
+    private static final ThreadLocal<StringBuffer> BUFFER = ThreadLocal.withInitial(() -> new StringBuffer(32));
+    private static final ThreadLocal<FieldPosition> POSITION = ThreadLocal.withInitial(() -> new FieldPosition(0));
+
+    private final ThreadLocal<DecimalFormat> decimalFormat;
+    private final boolean compact;
+    private final double compactCarry;
+
+    private ResultFormatter(@Nullable String pattern, boolean compact) {
+        this.compact = compact;
+
+        if (pattern == null) {
+            this.decimalFormat = null;
+            this.compactCarry = 1000;
+            return;
+        }
+
+        // Fail at registration rather than on the first request.
+        final DecimalFormat prototype = new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.ROOT));
+        this.decimalFormat = ThreadLocal.withInitial(() -> (DecimalFormat) prototype.clone());
+        // The smallest value rounded to 1000 by the pattern, which then reads better with the next suffix.
+        this.compactCarry = 1000 - 0.5 / Math.pow(10, prototype.getMaximumFractionDigits());
+    }
+
+    public static ResultFormatter of(@Nullable Placeholder placeholder) {
+        if (placeholder == null || (placeholder.format().isEmpty() && !placeholder.compact())) {
+            return PLAIN;
+        }
+
+        final String pattern = placeholder.format().isEmpty() ? COMPACT_PATTERN : placeholder.format();
+        return new ResultFormatter(pattern, placeholder.compact());
+    }
+
+    public static ResultFormatter plain() {
+        return PLAIN;
+    }
+
+    @Nullable
+    public String format(@Nullable Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof String string) {
+            return string;
+        }
+
+        if (!(value instanceof Number number)) {
+            return value.toString();
+        }
+
+        if (decimalFormat == null) {
+            final String integer = isIntegral(number) ? ResultInterner.smallInteger(number.longValue()) : null;
+            return integer != null ? integer : value.toString();
+        }
+
+        final StringBuffer buffer = BUFFER.get();
+        final FieldPosition position = POSITION.get();
+        buffer.setLength(0);
+
+        final DecimalFormat format = decimalFormat.get();
+        if (compact) {
+            appendCompact(format, number, buffer, position);
+        } else if (number instanceof BigDecimal || number instanceof BigInteger) {
+            format.format(number, buffer, position);
+        } else if (isIntegral(number)) {
+            format.format(number.longValue(), buffer, position);
+        } else {
+            format.format(number.doubleValue(), buffer, position);
+        }
+
+        return buffer.toString();
+    }
+
+    private void appendCompact(DecimalFormat format, Number number, StringBuffer buffer, FieldPosition position) {
+        int suffix = -1;
+        double value;
+
+        if (isIntegral(number)) {
+            // Scaled on the long itself, doubles lose precision above 2^53.
+            final long whole = number.longValue();
+            long divisor = 1;
+            while (suffix < COMPACT_SUFFIXES.length - 1 && (whole / divisor >= 1000 || whole / divisor <= -1000)) {
+                divisor *= 1000;
+                suffix++;
+            }
+
+            if (suffix < 0) {
+                format.format(whole, buffer, position);
+                return;
+            }
+            value = whole / divisor + (double) (whole % divisor) / divisor;
+        } else {
+            value = number.doubleValue();
+            while (Math.abs(value) >= 1000 && suffix < COMPACT_SUFFIXES.length - 1) {
+                value /= 1000;
+                suffix++;
+            }
+        }
+
+        // Rounding may carry over to 1000, such as 999.95k with one fraction digit.
+        if (Math.abs(value) >= compactCarry && suffix < COMPACT_SUFFIXES.length - 1) {
+            value /= 1000;
+            suffix++;
+        }
+
+        format.format(value, buffer, position);
+        if (suffix >= 0) {
+            buffer.append(COMPACT_SUFFIXES[suffix]);
+        }
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer
+                || number instanceof Long
+                || number instanceof Short
+                || number instanceof Byte;
+    }
+}
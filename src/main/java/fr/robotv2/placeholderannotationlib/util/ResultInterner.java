@@ -0,0 +1,106 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Canonicalizes placeholder results so identical ones share a single instance. Most cached results
+ * are drawn from a tiny set of values, such as "0", "true" or a rank name, repeated for every player.
+ * <p>
+ * Strings of the integers from -128 to 1024 are precomputed. Other results go through a fixed table
+ * of slots indexed by their hash, a result taking over the slot of whatever value occupied it: the pool
+ * never holds more than its capacity, values that keep coming back stay in place, and interning takes
+ * no lock and allocates nothing. Slots are read and written without synchronization since strings are
+ * immutable, a race only misses a deduplication. Results longer than 32 characters are rarely shared
+ * and are left as they are.
+ */
+public final class ResultInterner {
+
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    private static final int MIN_INTEGER = -128;
+    private static final int MAX_INTEGER = 1024;
+    private static final int MAX_LENGTH = 32;
+
+    private static final String[] INTEGERS = new String[MAX_INTEGER - MIN_INTEGER + 1];
+
+    static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = Integer.toString(i + MIN_INTEGER);
+        }
+    }
+
+    private final String[] slots;
+    private final int mask;
+
+    public ResultInterner(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return the precomputed string of the integer, or {@code null} if it has none.
+     */
+    @Nullable
+    public static String smallInteger(long value) {
+        return value >= MIN_INTEGER && value <= MAX_INTEGER ? INTEGERS[(int) value - MIN_INTEGER] : null;
+    }
+
+    /**
+     * @return the instance shared by the results equal to this one, which is this one if none was seen recently.
+     */
+    public String intern(String value) {
+        final int length = value.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return value;
+        }
+
+        if (length <= 4) {
+            final String integer = smallInteger(value);
+            if (integer != null) {
+                return integer;
+            }
+        }
+
+        final int index = spread(value.hashCode()) & mask;
+        final String slot = slots[index];
+        if (value.equals(slot)) {
+            return slot;
+        }
+
+        slots[index] = value;
+        return value;
+    }
+
+    @Nullable
+    private static String smallInteger(String value) {
+        final int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == value.length()) {
+            return null;
+        }
+
+        int number = 0;
+        for (int i = start; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            number = number * 10 + (c - '0');
+        }
+
+        // Only the canonical spelling maps to the integer: not "007" nor "-0".
+        final String integer = smallInteger(start == 1 ? -number : number);
+        return integer != null && integer.equals(value) ? integer : null;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
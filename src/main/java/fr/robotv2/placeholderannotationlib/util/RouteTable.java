@@ -0,0 +1,385 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routes placeholder params to the longest registered id matching their beginning, the remaining
+ * segments becoming arguments.
+ * <p>
+ * Ids are made of segments joined by the separator. A segment is either a literal, matched ignoring
+ * case, or a typed variable whose value becomes an argument: {@code {int}} and {@code {long}} match
+ * integers, {@code {double}} and {@code {float}} decimal numbers, and any other {@code {name}} matches
+ * any segment. When several ids match the same segments, the most specific one wins, comparing
+ * segment by segment: literal, then integer, then decimal, then any.
+ * <p>
+ * Every id is compiled into one deterministic automaton over segments (a trie of ids turned
+ * deterministic by subset construction), so params are matched in a single pass, one table lookup
+ * per segment, whatever the number of registered ids. Matching only allocates the arguments.
+ */
+public final class RouteTable<T> {
+
+    private static final int LITERAL = 0;
+    private static final int INTEGER = 1;
+    private static final int DECIMAL = 2;
+    private static final int ANY = 3;
+
+    private static final String[] NO_ARGS = new String[0];
+
+    private final String separator;
+    private final State<T> start;
+    private final int stateCount;
+
+    private RouteTable(String separator, State<T> start, int stateCount) {
+        this.separator = separator;
+        this.start = start;
+        this.stateCount = stateCount;
+    }
+
+    /**
+     * @param routes the values to route to, by id. Of two ids with the same segment types, the first wins.
+     */
+    public static <T> RouteTable<T> compile(Map<String, ? extends T> routes, String separator) {
+        final Node<T> root = new Node<>(new int[0]);
+        for (Map.Entry<String, ? extends T> entry : routes.entrySet()) {
+            final String[] tokens = split(entry.getKey(), separator);
+            final List<Integer> variables = new ArrayList<>();
+
+            Node<T> node = root;
+            for (int i = 0; i < tokens.length; i++) {
+                final int kind = kindOf(tokens[i]);
+                if (kind != LITERAL) {
+                    variables.add(i);
+                }
+                node = node.child(kind, tokens[i]);
+            }
+
+            if (node.route == null) {
+                node.route = new Route<>(entry.getKey(), entry.getValue(), variables.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        final Map<Set<Node<T>>, State<T>> states = new HashMap<>();
+        final ArrayDeque<Set<Node<T>>> pending = new ArrayDeque<>();
+        final State<T> start = stateOf(Set.of(root), states, pending);
+
+        while (!pending.isEmpty()) {
+            final Set<Node<T>> nodes = pending.poll();
+            final State<T> state = states.get(nodes);
+
+            final Set<String> literals = new HashSet<>();
+            for (Node<T> node : nodes) {
+                literals.addAll(node.literals.keySet());
+            }
+
+            final Map<String, State<T>> literalTargets = new HashMap<>();
+            for (String literal : literals) {
+                final Set<Node<T>> targets = new LinkedHashSet<>();
+                for (Node<T> node : nodes) {
+                    final Node<T> target = node.literals.get(literal);
+                    if (target != null) {
+                        targets.add(target);
+                    }
+                }
+                // A literal such as "5" is also a value of the variables it fits in.
+                addVariableTargets(nodes, classify(literal, 0, literal.length()), targets);
+                literalTargets.put(literal, stateOf(targets, states, pending));
+            }
+
+            state.literals = KeyedLookup.of(literalTargets);
+            state.onInteger = stateOf(variableTargets(nodes, INTEGER), states, pending);
+            state.onDecimal = stateOf(variableTargets(nodes, DECIMAL), states, pending);
+            state.onOther = stateOf(variableTargets(nodes, ANY), states, pending);
+            state.route = mostSpecificRoute(nodes);
+        }
+
+        return new RouteTable<>(separator, start, states.size());
+    }
+
+    /**
+     * @return the value routed to by the longest matching id, with the values of its variables followed
+     * by the remaining segments as arguments, or {@code null} if no id matches.
+     */
+    @Nullable
+    public Match<T> match(String params) {
+        final int length = params.length();
+        State<T> state = start;
+        Route<T> accepted = null;
+        int acceptedEnd = 0;
+
+        int from = 0;
+        while (true) {
+            int end = params.indexOf(separator, from);
+            if (end < 0) {
+                end = length;
+            }
+
+            state = state.next(params, from, end);
+            if (state == null) {
+                break;
+            }
+            if (state.route != null) {
+                accepted = state.route;
+                acceptedEnd = end;
+            }
+            if (end == length) {
+                break;
+            }
+            from = end + separator.length();
+        }
+
+        if (accepted == null) {
+            return null;
+        }
+        return new Match<>(accepted.id(), accepted.value(), arguments(params, accepted.variables(), acceptedEnd));
+    }
+
+    /**
+     * @return whether some id starts with the segment of {@code params} ending at {@code end}. If none
+     * does, no params starting with that segment can match, whatever follows it.
+     */
+    public boolean routesFirstSegment(String params, int end) {
+        return start.next(params, 0, end) != null;
+    }
+
+    /**
+     * @return the id with the names of its variables dropped, their types kept. Ids of the same shape
+     * match the same params, only the first of them is ever routed to.
+     */
+    public static String shape(String id, String separator) {
+        final StringBuilder shape = new StringBuilder(id.length());
+        final String[] tokens = split(id, separator);
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                shape.append(separator);
+            }
+            shape.append(switch (kindOf(tokens[i])) {
+                case LITERAL -> tokens[i].toLowerCase(Locale.ROOT);
+                case INTEGER -> "{int}";
+                case DECIMAL -> "{double}";
+                default -> "{any}";
+            });
+        }
+        return shape.toString();
+    }
+
+    /**
+     * @return the number of states of the compiled automaton.
+     */
+    public int stateCount() {
+        return stateCount;
+    }
+
+    private String[] arguments(String params, int[] variables, int prefixEnd) {
+        final int separatorLength = separator.length();
+
+        // Trailing empty segments are dropped, like String#split does.
+        final int trailingStart = Math.min(prefixEnd + separatorLength, params.length());
+        int trailingEnd = params.length();
+        while (trailingEnd - separatorLength >= trailingStart && params.startsWith(separator, trailingEnd - separatorLength)) {
+            trailingEnd -= separatorLength;
+        }
+
+        int trailing = 0;
+        if (trailingEnd > trailingStart) {
+            trailing = 1;
+            for (int index = params.indexOf(separator, trailingStart); index >= 0 && index < trailingEnd;
+                 index = params.indexOf(separator, index + separatorLength)) {
+                trailing++;
+            }
+        }
+
+        if (variables.length == 0 && trailing == 0) {
+            return NO_ARGS;
+        }
+
+        final String[] args = new String[variables.length + trailing];
+        int from = 0;
+        for (int segment = 0, variable = 0; variable < variables.length; segment++) {
+            final int end = params.indexOf(separator, from);
+            if (segment == variables[variable]) {
+                args[variable++] = params.substring(from, end < 0 ? params.length() : end);
+            }
+            from = end + separatorLength;
+        }
+
+        from = trailingStart;
+        for (int i = variables.length; i < args.length; i++) {
+            int end = params.indexOf(separator, from);
+            if (end < 0 || end > trailingEnd) {
+                end = trailingEnd;
+            }
+            args[i] = params.substring(from, end);
+            from = end + separatorLength;
+        }
+        return args;
+    }
+
+    private static <T> State<T> stateOf(Set<Node<T>> nodes, Map<Set<Node<T>>, State<T>> states, ArrayDeque<Set<Node<T>>> pending) {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        State<T> state = states.get(nodes);
+        if (state == null) {
+            state = new State<>();
+            states.put(nodes, state);
+            pending.add(nodes);
+        }
+        return state;
+    }
+
+    private static <T> Set<Node<T>> variableTargets(Set<Node<T>> nodes, int segmentClass) {
+        final Set<Node<T>> targets = new LinkedHashSet<>();
+        addVariableTargets(nodes, segmentClass, targets);
+        return targets;
+    }
+
+    private static <T> void addVariableTargets(Set<Node<T>> nodes, int segmentClass, Set<Node<T>> targets) {
+        for (Node<T> node : nodes) {
+            if (segmentClass == INTEGER && node.integer != null) {
+                targets.add(node.integer);
+            }
+            if (segmentClass <= DECIMAL && node.decimal != null) {
+                targets.add(node.decimal);
+            }
+            if (node.any != null) {
+                targets.add(node.any);
+            }
+        }
+    }
+
+    @Nullable
+    private static <T> Route<T> mostSpecificRoute(Set<Node<T>> nodes) {
+        Node<T> best = null;
+        for (Node<T> node : nodes) {
+            if (node.route != null && (best == null || Arrays.compare(node.kinds, best.kinds) < 0)) {
+                best = node;
+            }
+        }
+        return best != null ? best.route : null;
+    }
+
+    /**
+     * @return the class of the segment: {@link #INTEGER}, {@link #DECIMAL}, or {@link #ANY} for anything else.
+     */
+    private static int classify(String source, int from, int to) {
+        int index = from;
+        if (index < to && (source.charAt(index) == '-' || source.charAt(index) == '+')) {
+            index++;
+        }
+
+        int digits = 0;
+        boolean dot = false;
+        for (; index < to; index++) {
+            final char c = source.charAt(index);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return ANY;
+            }
+        }
+
+        if (digits == 0) {
+            return ANY;
+        }
+        return dot ? DECIMAL : INTEGER;
+    }
+
+    private static int kindOf(String token) {
+        if (token.length() < 2 || token.charAt(0) != '{' || token.charAt(token.length() - 1) != '}') {
+            return LITERAL;
+        }
+
+        return switch (token.substring(1, token.length() - 1).toLowerCase(Locale.ROOT)) {
+            case "int", "long" -> INTEGER;
+            case "double", "float" -> DECIMAL;
+            default -> ANY;
+        };
+    }
+
+    private static String[] split(String id, String separator) {
+        final List<String> tokens = new ArrayList<>();
+        int from = 0;
+        for (int end = id.indexOf(separator); end >= 0; end = id.indexOf(separator, from)) {
+            tokens.add(id.substring(from, end));
+            from = end + separator.length();
+        }
+        tokens.add(id.substring(from));
+        return tokens.toArray(new String[0]);
+    }
+
+    public record Match<T>(String id, T value, String[] args) {
+    }
+
+    private record Route<T>(String id, T value, int[] variables) {
+    }
+
+    /**
+     * A node of the trie of ids, which is the nondeterministic automaton: a segment may follow
+     * both a literal and a variable edge.
+     */
+    private static final class Node<T> {
+
+        private final int[] kinds; // Of the segments leading here, to rank ids by specificity.
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private Node<T> integer;
+        private Node<T> decimal;
+        private Node<T> any;
+        private Route<T> route;
+
+        private Node(int[] kinds) {
+            this.kinds = kinds;
+        }
+
+        private Node<T> child(int kind, String token) {
+            final int[] childKinds = Arrays.copyOf(kinds, kinds.length + 1);
+            childKinds[kinds.length] = kind;
+
+            return switch (kind) {
+                case LITERAL -> literals.computeIfAbsent(token.toLowerCase(Locale.ROOT), ignored -> new Node<>(childKinds));
+                case INTEGER -> integer != null ? integer : (integer = new Node<>(childKinds));
+                case DECIMAL -> decimal != null ? decimal : (decimal = new Node<>(childKinds));
+                default -> any != null ? any : (any = new Node<>(childKinds));
+            };
+        }
+    }
+
+    private static final class State<T> {
+
+        private KeyedLookup<State<T>> literals;
+        private State<T> onInteger;
+        private State<T> onDecimal;
+        private State<T> onOther;
+        private Route<T> route;
+
+        @Nullable
+        private State<T> next(String params, int from, int to) {
+            final State<T> literal = literals.get(params, from, to);
+            if (literal != null) {
+                return literal;
+            }
+            if (onInteger == null && onDecimal == null && onOther == null) {
+                return null;
+            }
+
+            return switch (classify(params, from, to)) {
+                case INTEGER -> onInteger;
+                case DECIMAL -> onDecimal;
+                default -> onOther;
+            };
+        }
+    }
+}
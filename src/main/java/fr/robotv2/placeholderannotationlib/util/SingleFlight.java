@@ -0,0 +1,57 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes concurrent computations of the same key share a single execution: the first caller
+ * runs the task while the others wait for, and return, its result.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> task) {
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            final V value = task.get();
+            flight.complete(value);
+            return value;
+        } catch (Throwable throwable) {
+            flight.completeExceptionally(throwable);
+            throw throwable;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return the number of computations currently running.
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+    }
+}
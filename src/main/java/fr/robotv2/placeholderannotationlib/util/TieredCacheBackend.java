@@ -0,0 +1,298 @@
+package fr.robotv2.placeholderannotationlib.util;
+
+import fr.robotv2.placeholderannotationlib.api.PlaceholderCacheBackend;
+import fr.robotv2.placeholderannotationlib.api.SharedCacheStore;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A two-level {@link PlaceholderCacheBackend}: a local in-memory cache in front of a
+ * {@link SharedCacheStore} shared by every server of a network.
+ * <p>
+ * Lookups hit the local level first and fall back to the shared one, copying what they find
+ * locally for the rest of its lifetime. A value computed on one server is therefore reused by
+ * every other one instead of being computed again against the same database. A key missing from
+ * the shared store is not looked up there again for {@code missDelay}. On the server's main thread,
+ * the shared store is never waited for: the lookup runs in the background, on the executor given
+ * or on a daemon thread of the library by default, and a miss is returned, so the value found is only
+ * used by the next lookups. Background lookups that fail are logged.
+ * <p>
+ * Writes go to the local level right away and are sent to the shared store in batches, once
+ * {@code batchSize} writes are pending or, from the {@link CacheSystem} expiry thread, once the
+ * oldest one has waited for {@code maxDelay}. Call {@link #flush()} to send pending writes
+ * immediately, typically when the plugin is disabled.
+ * <p>
+ * Invalidating drops the matching entries of both levels, and the writes still pending, so no server
+ * copies them back from the shared store.
+ * <p>
+ * Entries are encoded as the player's UUID bits followed by the UTF-8 placeholder key, and as
+ * their expiry followed by the result in Latin-1 when possible (UTF-8 otherwise).
+ */
+public final class TieredCacheBackend implements PlaceholderCacheBackend {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+    public static final long DEFAULT_MISS_DELAY_MILLIS = 1000;
+
+    private static final int MAX_MISSES = 4096;
+    private static final long IDLE_SECONDS = 30;
+
+    private static final Executor LOOKUP_POOL = createPool();
+
+    private static final byte LATIN1 = 0;
+    private static final byte UTF8 = 1;
+
+    private final PlaceholderCacheBackend local;
+    private final SharedCacheStore shared;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long missDelayNanos;
+    private final BooleanSupplier mustNotBlock;
+    private final Executor executor;
+    private final Logger logger;
+
+    // Keys recently missing from the shared store, with the time until which they are not looked up again.
+    private final Map<Key, Long> misses = new ConcurrentHashMap<>();
+
+    // Guarded by this.
+    private List<SharedCacheStore.Write> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public TieredCacheBackend(PlaceholderCacheBackend local, SharedCacheStore shared) {
+        this(local, shared, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public TieredCacheBackend(PlaceholderCacheBackend local, SharedCacheStore shared, int batchSize, long maxDelay, TimeUnit unit) {
+        this(local, shared, batchSize, unit.toMillis(maxDelay), DEFAULT_MISS_DELAY_MILLIS, TimeUnit.MILLISECONDS, TieredCacheBackend::isMainThread);
+    }
+
+    public TieredCacheBackend(PlaceholderCacheBackend local, SharedCacheStore shared, int batchSize, long maxDelay, long missDelay,
+                              TimeUnit unit, BooleanSupplier mustNotBlock) {
+        this(local, shared, batchSize, maxDelay, missDelay, unit, mustNotBlock, LOOKUP_POOL, Logger.getLogger("PALib"));
+    }
+
+    /**
+     * @param missDelay    how long a key missing from the shared store is not looked up there again.
+     * @param mustNotBlock whether the current thread must not wait for the shared store, by default
+     *                     whether it is the server's main thread.
+     * @param executor     runs the lookups of the threads that must not block, such as the plugin's async scheduler.
+     * @param logger       logs the lookups that failed in the background.
+     */
+    public TieredCacheBackend(PlaceholderCacheBackend local, SharedCacheStore shared, int batchSize, long maxDelay, long missDelay,
+                              TimeUnit unit, BooleanSupplier mustNotBlock, Executor executor, Logger logger) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.local = local;
+        this.shared = shared;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.missDelayNanos = unit.toNanos(missDelay);
+        this.mustNotBlock = mustNotBlock;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    @Override
+    @Nullable
+    public String getCache(UUID uuid, String placeholder) {
+        final String cached = local.getCache(uuid, placeholder);
+        if (cached != null) {
+            return cached;
+        }
+
+        final Key key = new Key(uuid, placeholder);
+        final Long retryAt = misses.get(key);
+        if (retryAt != null && retryAt - System.nanoTime() > 0) {
+            return null;
+        }
+
+        // Marked as missing until the lookup completes, so concurrent lookups of the key do not repeat it.
+        if (misses.size() >= MAX_MISSES) {
+            misses.clear();
+        }
+        misses.put(key, System.nanoTime() + missDelayNanos);
+
+        if (mustNotBlock.getAsBoolean()) {
+            executor.execute(() -> {
+                try {
+                    fetch(key);
+                } catch (RuntimeException exception) {
+                    logger.log(Level.WARNING, "Could not look up a placeholder in the shared cache store", exception);
+                }
+            });
+            return null;
+        }
+        return fetch(key);
+    }
+
+    /**
+     * Copies the value of the shared store locally, if it has one.
+     */
+    @Nullable
+    private String fetch(Key key) {
+        final byte[] value = shared.get(encodeKey(key.uuid(), key.placeholder()));
+        if (value == null) {
+            return null;
+        }
+
+        final long remaining = ByteBuffer.wrap(value).getLong() - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return null;
+        }
+
+        final String result = new String(value, Long.BYTES + 1, value.length - Long.BYTES - 1,
+                value[Long.BYTES] == LATIN1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        local.cache(key.uuid(), key.placeholder(), result, remaining, TimeUnit.MILLISECONDS);
+        misses.remove(key);
+        return result;
+    }
+
+    @Override
+    public void cache(UUID uuid, String placeholder, String result, long duration, TimeUnit unit) {
+        local.cache(uuid, placeholder, result, duration, unit);
+
+        final long timeToLive = unit.toMillis(duration);
+        if (timeToLive <= 0) {
+            return;
+        }
+
+        final SharedCacheStore.Write write = new SharedCacheStore.Write(
+                encodeKey(uuid, placeholder), encodeValue(result, System.currentTimeMillis() + timeToLive), timeToLive);
+
+        final List<SharedCacheStore.Write> batch;
+        synchronized (this) {
+            pending.add(write);
+            if (pending.size() >= batchSize) {
+                batch = drain();
+            } else {
+                batch = null;
+                if (scheduledFlush == null) {
+                    scheduledFlush = CacheSystem.INSTANCE.schedule(this::flush, maxDelayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        if (batch != null) {
+            shared.putAll(batch);
+        }
+    }
+
+    /**
+     * Only visits the entries of the local level.
+     */
+    @Override
+    public void forEachEntry(EntryVisitor visitor) {
+        local.forEachEntry(visitor);
+    }
+
+    /**
+     * Invalidates both levels and drops the matching writes still pending, as well as the misses
+     * remembered for the matching keys. The shared store is only invalidated if it
+     * {@link SharedCacheStore#invalidate(Predicate) supports it}.
+     */
+    @Override
+    public void invalidate(Predicate<String> placeholder) {
+        synchronized (this) {
+            pending.removeIf(write -> placeholder.test(decodePlaceholder(write.key())));
+        }
+        local.invalidate(placeholder);
+        misses.keySet().removeIf(key -> placeholder.test(key.placeholder()));
+        shared.invalidate(key -> placeholder.test(decodePlaceholder(key)));
+    }
+
+    /**
+     * Sends the pending writes to the shared store now.
+     */
+    public void flush() {
+        final List<SharedCacheStore.Write> batch;
+        synchronized (this) {
+            batch = pending.isEmpty() ? null : drain();
+        }
+
+        if (batch != null) {
+            shared.putAll(batch);
+        }
+    }
+
+    public synchronized int pendingWrites() {
+        return pending.size();
+    }
+
+    private List<SharedCacheStore.Write> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+
+        final List<SharedCacheStore.Write> batch = pending;
+        pending = new ArrayList<>(batchSize);
+        return batch;
+    }
+
+    private static boolean isMainThread() {
+        return Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+    }
+
+    private static byte[] encodeKey(UUID uuid, String placeholder) {
+        final byte[] name = placeholder.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(16 + name.length)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .put(name)
+                .array();
+    }
+
+    private static String decodePlaceholder(byte[] key) {
+        return new String(key, 16, key.length - 16, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeValue(String result, long expiresAt) {
+        final boolean latin1 = isLatin1(result);
+        final byte[] bytes = result.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Long.BYTES + 1 + bytes.length)
+                .putLong(expiresAt)
+                .put(latin1 ? LATIN1 : UTF8)
+                .put(bytes)
+                .array();
+    }
+
+    private static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Executor createPool() {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            final Thread thread = new Thread(task, "PALib-SharedCacheStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private record Key(UUID uuid, String placeholder) {
+    }
+}
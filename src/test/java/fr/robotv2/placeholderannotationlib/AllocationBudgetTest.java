@@ -0,0 +1,95 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.impl.PlaceholderAnnotationProcessorImpl;
+import org.bukkit.OfflinePlayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the hot path against allocation regressions: each scenario measures the average number
+ * of bytes allocated per {@code process} call and fails if it goes over its budget.
+ * <p>
+ * Budgets include some headroom for JIT differences between JVMs. When a change legitimately
+ * lowers a scenario's allocations, lower its budget too.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 10_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private PlaceholderAnnotationProcessorImpl processor;
+    private OfflinePlayer player;
+
+    @BeforeEach
+    public void setup() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled(),
+                "Per-thread allocation accounting is not available on this JVM");
+
+        processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false);
+        new TestExpansion(processor);
+        processor.registerDirect("direct_budget", actor -> "Direct");
+        processor.registerPublished("published_budget").publish("Published");
+
+        // A proxy rather than a Mockito mock: Mockito records every invocation, which would be measured too.
+        final UUID uuid = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        player = (OfflinePlayer) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{OfflinePlayer.class},
+                (proxy, method, args) -> method.getName().equals("getUniqueId") ? uuid : null);
+    }
+
+    @Test
+    public void testCacheHitBudget() {
+        assertEquals("Cached budget", processor.process(player, "budget_cached"));
+        assertBudget("cache hit", "budget_cached", 400);
+    }
+
+    @Test
+    public void testFieldPlaceholderBudget() {
+        assertEquals("Field placeholder value", processor.process(player, "field_value"));
+        assertBudget("field placeholder", "field_value", 128);
+    }
+
+    @Test
+    public void testDirectPlaceholderBudget() {
+        assertEquals("Direct", processor.process(player, "direct_budget"));
+        assertBudget("direct placeholder", "direct_budget", 128);
+    }
+
+    @Test
+    public void testPublishedPlaceholderBudget() {
+        assertEquals("Published", processor.process(player, "published_budget"));
+        assertBudget("published placeholder", "published_budget", 128);
+    }
+
+    @Test
+    public void testIntArgumentsBudget() {
+        assertEquals("5", processor.process(player, "math_add_2_3"));
+        assertBudget("method with int arguments", "math_add_2_3", 600);
+    }
+
+    private void assertBudget(String scenario, String params, long budgetBytes) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            processor.process(player, params);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            processor.process(player, params);
+        }
+        final long perCall = (THREADS.getThreadAllocatedBytes(threadId) - before) / MEASURED_CALLS;
+
+        assertTrue(perCall <= budgetBytes, () -> scenario + ": measured " + perCall + " bytes per call, over the budget of " + budgetBytes);
+    }
+}
@@ -0,0 +1,107 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.util.CacheSnapshot;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheSnapshotTest {
+
+    private static final UUID STEVE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Test
+    public void testSaveAndLoadRestoresLiveEntries() throws IOException, InterruptedException {
+        Path file = Files.createTempDirectory("palib").resolve("cache.bin");
+
+        CompactCacheSystem before = new CompactCacheSystem();
+        before.cache(STEVE, "balance:", "100.42", 1, TimeUnit.MINUTES);
+        before.cache(STEVE, "title:", "★ Légende", 1, TimeUnit.MINUTES);
+        before.cache(STEVE, "tps:", "20.0", 50, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(100);
+        assertEquals(2, CacheSnapshot.save(before, file));
+
+        CompactCacheSystem after = new CompactCacheSystem();
+        assertEquals(2, CacheSnapshot.load(after, file));
+        assertEquals("100.42", after.getCache(STEVE, "balance:"));
+        assertEquals("★ Légende", after.getCache(STEVE, "title:"));
+        assertNull(after.getCache(STEVE, "tps:"));
+    }
+
+    @Test
+    public void testEntriesExpiredWhileStoppedAreSkipped() throws IOException, InterruptedException {
+        Path file = Files.createTempDirectory("palib").resolve("cache.bin");
+
+        CompactCacheSystem before = new CompactCacheSystem();
+        before.cache(STEVE, "tps:", "20.0", 100, TimeUnit.MILLISECONDS);
+        assertEquals(1, CacheSnapshot.save(before, file));
+
+        Thread.sleep(150);
+        CompactCacheSystem after = new CompactCacheSystem();
+        assertEquals(0, CacheSnapshot.load(after, file));
+        assertNull(after.getCache(STEVE, "tps:"));
+    }
+
+    @Test
+    public void testMissingSnapshotLoadsNothing() throws IOException {
+        Path file = Files.createTempDirectory("palib").resolve("missing.bin");
+        assertEquals(0, CacheSnapshot.load(new CompactCacheSystem(), file));
+    }
+
+    @Test
+    public void testOnlyMatchingKeysAreSaved() throws IOException {
+        Path file = Files.createTempDirectory("palib").resolve("cache.bin");
+
+        CompactCacheSystem before = new CompactCacheSystem();
+        before.cache(STEVE, "balance:", "100.42", 1, TimeUnit.MINUTES);
+        before.cache(STEVE, "other_rank:", "Admin", 1, TimeUnit.MINUTES);
+        assertEquals(1, CacheSnapshot.save(before, file, key -> key.startsWith("balance:")));
+
+        CompactCacheSystem after = new CompactCacheSystem();
+        assertEquals(1, CacheSnapshot.load(after, file));
+        assertNull(after.getCache(STEVE, "other_rank:"));
+    }
+
+    @Test
+    public void testCorruptLengthIsRejected() throws IOException {
+        Path file = Files.createTempFile("palib", ".bin");
+        try {
+            CompactCacheSystem cache = new CompactCacheSystem();
+            cache.cache(STEVE, "balance:", "100.42", 1, TimeUnit.MINUTES);
+            CacheSnapshot.save(cache, file);
+
+            // The length of the placeholder key follows the header, the marker, the UUID and the expiry.
+            for (int length : new int[]{Integer.MAX_VALUE, -1}) {
+                byte[] bytes = Files.readAllBytes(file);
+                ByteBuffer.wrap(bytes).putInt(8 + 1 + 24, length);
+                Files.write(file, bytes);
+
+                IOException exception = assertThrows(IOException.class, () -> CacheSnapshot.load(new CompactCacheSystem(), file));
+                assertTrue(exception.getMessage().startsWith("Corrupt"));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testFailedSaveLeavesNoTemporaryFile() throws IOException {
+        Path file = Files.createTempDirectory("palib").resolve("cache.bin");
+        // A non-empty directory cannot be replaced by the snapshot.
+        Files.createDirectories(file.resolve("occupied"));
+
+        CompactCacheSystem cache = new CompactCacheSystem();
+        cache.cache(STEVE, "balance:", "100.42", 1, TimeUnit.MINUTES);
+
+        assertThrows(IOException.class, () -> CacheSnapshot.save(cache, file));
+        assertFalse(Files.exists(file.resolveSibling("cache.bin.tmp")));
+    }
+}
@@ -0,0 +1,110 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactCacheSystemTest {
+
+    private CompactCacheSystem cache;
+    private UUID steve;
+    private UUID alex;
+
+    @BeforeEach
+    public void setup() {
+        cache = new CompactCacheSystem();
+        steve = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        alex = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    }
+
+    @Test
+    public void testCacheHit() {
+        cache.cache(steve, "balance:", "100.42", 1, TimeUnit.MINUTES);
+        assertEquals("100.42", cache.getCache(steve, "balance:"));
+        assertNull(cache.getCache(alex, "balance:"));
+        assertNull(cache.getCache(steve, "rank:"));
+    }
+
+    @Test
+    public void testOverwrite() {
+        cache.cache(steve, "rank:", "Member", 1, TimeUnit.MINUTES);
+        cache.cache(steve, "rank:", "Admin", 1, TimeUnit.MINUTES);
+        assertEquals("Admin", cache.getCache(steve, "rank:"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testNonLatin1Result() {
+        cache.cache(steve, "title:", "★ Légende 勇者", 1, TimeUnit.MINUTES);
+        assertEquals("★ Légende 勇者", cache.getCache(steve, "title:"));
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        cache.cache(steve, "tps:", "20.0", 50, TimeUnit.MILLISECONDS);
+        assertEquals("20.0", cache.getCache(steve, "tps:"));
+
+        Thread.sleep(100);
+        assertNull(cache.getCache(steve, "tps:"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testManyEntriesSurviveResizeAndRemoval() {
+        for (int player = 0; player < 200; player++) {
+            UUID uuid = new UUID(0, player);
+            for (int key = 0; key < 20; key++) {
+                cache.cache(uuid, "stat_" + key + ":", player + "/" + key, 1, TimeUnit.MINUTES);
+            }
+        }
+        assertEquals(4000, cache.size());
+
+        // Expire one player's entries, forcing removals in the middle of probe sequences.
+        for (int key = 0; key < 20; key++) {
+            cache.cache(new UUID(0, 7), "stat_" + key + ":", "gone", 0, TimeUnit.MILLISECONDS);
+        }
+        for (int key = 0; key < 20; key++) {
+            assertNull(cache.getCache(new UUID(0, 7), "stat_" + key + ":"));
+        }
+
+        for (int player = 0; player < 200; player++) {
+            if (player == 7) continue;
+            for (int key = 0; key < 20; key++) {
+                assertEquals(player + "/" + key, cache.getCache(new UUID(0, player), "stat_" + key + ":"));
+            }
+        }
+    }
+
+    @Test
+    public void testSlotsAndOrdinalsAreReleasedWithTheirEntries() throws InterruptedException {
+        for (int player = 0; player < 50; player++) {
+            cache.cache(new UUID(1, player), "exp_balance:player" + player, "0", 50, TimeUnit.MILLISECONDS);
+        }
+        cache.cache(steve, "rank:", "Admin", 1, TimeUnit.MINUTES);
+        cache.cache(alex, "rank:", "Member", 1, TimeUnit.MINUTES);
+        assertEquals(52, cache.players());
+        assertEquals(51, cache.placeholderKeys());
+
+        cache.invalidate("rank:"::equals);
+        assertEquals(50, cache.players());
+        assertEquals(50, cache.placeholderKeys());
+
+        Thread.sleep(100);
+        for (int player = 0; player < 50; player++) {
+            assertNull(cache.getCache(new UUID(1, player), "exp_balance:player" + player));
+        }
+        assertEquals(0, cache.players());
+        assertEquals(0, cache.placeholderKeys());
+
+        // Released ids are reused by new keys without exposing old entries.
+        cache.cache(alex, "rank:", "Owner", 1, TimeUnit.MINUTES);
+        assertEquals("Owner", cache.getCache(alex, "rank:"));
+        assertNull(cache.getCache(steve, "rank:"));
+        assertEquals(1, cache.placeholderKeys());
+    }
+}
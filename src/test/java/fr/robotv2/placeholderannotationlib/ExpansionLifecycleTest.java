@@ -0,0 +1,146 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.api.PlaceholderSubscription;
+import fr.robotv2.placeholderannotationlib.impl.PlaceholderAnnotationProcessorImpl;
+import fr.robotv2.placeholderannotationlib.util.CacheSystem;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import fr.robotv2.placeholderannotationlib.util.RecomputeScheduler;
+import org.bukkit.OfflinePlayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExpansionLifecycleTest {
+
+    private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000044");
+
+    private OfflinePlayer player;
+
+    @BeforeEach
+    public void setup() {
+        player = mock(OfflinePlayer.class);
+        when(player.getUniqueId()).thenReturn(PLAYER);
+    }
+
+    @Test
+    public void testUnregisteredExpansionBecomesUnreachable() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false);
+        WeakReference<TestExpansion> expansion = registerAndUse(processor);
+
+        assertTrue(processor.unregisterExpansion(expansion.get()));
+        assertFalse(CacheSystem.INSTANCE.isCached(PLAYER, "budget_cached:"));
+        assertTrue(processor.registeredPlaceholders().isEmpty());
+        assertEquals("", processor.process(player, "budget_cached"));
+
+        assertUnreachable(expansion);
+        Reference.reachabilityFence(processor);
+    }
+
+    @Test
+    public void testQueuedRecomputationsAreDropped() throws InterruptedException {
+        CompactCacheSystem cache = new CompactCacheSystem();
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false,
+                cache, false, new RecomputeScheduler(1, TimeUnit.MILLISECONDS));
+        WeakReference<TestExpansion> expansion = registerAndUse(processor);
+
+        // Expires the cached result without waiting on the clock.
+        cache.invalidate(key -> key.startsWith("expensive_cached:"));
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        assertEquals(1, processor.recomputeBacklog());
+
+        processor.unregisterExpansion(expansion.get());
+        assertEquals(0, processor.recomputeBacklog());
+        assertEquals(0, processor.tick());
+
+        assertUnreachable(expansion);
+        Reference.reachabilityFence(processor);
+    }
+
+    @Test
+    public void testClosedProcessorReleasesEverything() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false);
+        WeakReference<TestExpansion> expansion = registerAndUse(processor);
+        PlaceholderSubscription subscription = processor.subscribe(player, "field_name");
+        processor.registerDirect("direct_value", actor -> "direct");
+
+        processor.close();
+        assertTrue(subscription.isClosed());
+        assertTrue(processor.registeredPlaceholders().isEmpty());
+        assertFalse(CacheSystem.INSTANCE.isCached(PLAYER, "budget_cached:"));
+        assertNull(processor.process(player, ""));
+
+        assertUnreachable(expansion);
+        Reference.reachabilityFence(processor);
+    }
+
+    @Test
+    public void testIdsRegisteredSinceAreKept() {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false,
+                new CompactCacheSystem());
+        TestExpansion expansion = new TestExpansion(processor);
+        processor.registerDirect("field_name", actor -> "direct");
+
+        assertTrue(processor.unregisterExpansion(expansion));
+        assertFalse(processor.unregisterExpansion(expansion));
+        assertEquals("direct", processor.process(player, "field_name"));
+        assertEquals(1, processor.registeredPlaceholders().size());
+    }
+
+    @Test
+    public void testExpansionCanBeRegisteredAgain() {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false,
+                new CompactCacheSystem());
+        TestExpansion first = new TestExpansion(processor);
+        processor.unregisterExpansion(first);
+
+        TestExpansion second = new TestExpansion(processor);
+        second.nameField = "Alex";
+        assertEquals("Alex", processor.process(player, "field_name"));
+        assertTrue(processor.process(player, "unknown_with_args").startsWith("Default output"));
+    }
+
+    @Test
+    public void testReplacedEntriesDoNotKeepTheirExpiry() {
+        int before = CacheSystem.INSTANCE.pendingExpiries();
+        for (int i = 0; i < 10; i++) {
+            CacheSystem.INSTANCE.cache(PLAYER, "lifecycle_replaced:", "value" + i, 1, TimeUnit.HOURS);
+        }
+        assertTrue(CacheSystem.INSTANCE.pendingExpiries() <= before + 1);
+
+        CacheSystem.INSTANCE.invalidate("lifecycle_replaced:"::equals);
+        assertFalse(CacheSystem.INSTANCE.isCached(PLAYER, "lifecycle_replaced:"));
+        assertTrue(CacheSystem.INSTANCE.pendingExpiries() <= before);
+    }
+
+    /**
+     * Registers an expansion and uses it in every way that keeps a reference to it, without any
+     * strong reference to it escaping.
+     */
+    private WeakReference<TestExpansion> registerAndUse(PlaceholderAnnotationProcessorImpl processor) {
+        TestExpansion expansion = new TestExpansion(processor);
+        assertEquals("Cached budget", processor.process(player, "budget_cached"));
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        assertEquals("Rank: VIP", processor.process(player, "enum_rank_vip"));
+
+        PlaceholderSubscription subscription = processor.subscribe(player, "field_name");
+        assertTrue(subscription.refresh());
+        return new WeakReference<>(expansion);
+    }
+
+    private static void assertUnreachable(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get(), "The expansion is still reachable");
+    }
+}
@@ -0,0 +1,113 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.impl.PlaceholderAnnotationProcessorImpl;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bukkit.OfflinePlayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlightRecorderTest {
+
+    private static final String PREFIX = "fr.robotv2.placeholderannotationlib.";
+
+    private OfflinePlayer player;
+
+    @BeforeEach
+    public void setup() {
+        player = mock(OfflinePlayer.class);
+        when(player.getName()).thenReturn("Steve");
+        when(player.getUniqueId()).thenReturn(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    public void testEventsAreEmittedWhenEnabled() throws IOException {
+        PlaceholderAnnotationProcessorImpl processor = processor(true);
+
+        List<RecordedEvent> events = record(() -> {
+            assertEquals("Cached budget", processor.process(player, "budget_cached"));
+            assertEquals("Cached budget", processor.process(player, "budget_cached"));
+        });
+
+        List<RecordedEvent> routing = ofType(events, "Routing");
+        assertEquals(2, routing.size());
+        assertEquals("budget_cached", routing.get(0).getString("placeholder"));
+        assertEquals("budget_cached", routing.get(0).getString("params"));
+        assertEquals("00000000-0000-0000-0000-000000000001", routing.get(0).getString("player"));
+
+        List<RecordedEvent> lookups = ofType(events, "CacheLookup");
+        assertEquals(2, lookups.size());
+        assertFalse(lookups.get(0).getBoolean("hit"));
+        assertTrue(lookups.get(1).getBoolean("hit"));
+
+        List<RecordedEvent> invocations = ofType(events, "Invocation");
+        assertEquals(1, invocations.size());
+        assertEquals("budgetCached", invocations.get(0).getString("method"));
+        assertEquals(1, ofType(events, "ArgumentResolution").size());
+    }
+
+    @Test
+    public void testUnknownPlaceholderIsRoutedToNothing() throws IOException {
+        PlaceholderAnnotationProcessorImpl processor = processor(true);
+
+        List<RecordedEvent> events = record(() -> processor.process(player, "nonexistent_placeholder"));
+
+        List<RecordedEvent> routing = ofType(events, "Routing");
+        assertEquals(1, routing.size());
+        assertNull(routing.get(0).getString("placeholder"));
+    }
+
+    @Test
+    public void testNoEventsWhenDisabled() throws IOException {
+        PlaceholderAnnotationProcessorImpl processor = processor(false);
+
+        List<RecordedEvent> events = record(() -> processor.process(player, "budget_cached"));
+
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName().startsWith(PREFIX)));
+    }
+
+    private static PlaceholderAnnotationProcessorImpl processor(boolean flightRecorder) {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl(
+                "_", Logger.getLogger("Test"), false, new CompactCacheSystem(), flightRecorder);
+        new TestExpansion(processor);
+        return processor;
+    }
+
+    private static List<RecordedEvent> record(Runnable task) throws IOException {
+        Path file = Files.createTempFile("palib", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                for (String event : new String[]{"Routing", "CacheLookup", "ArgumentResolution", "Invocation"}) {
+                    recording.enable(PREFIX + event).withoutThreshold();
+                }
+                recording.start();
+                task.run();
+                recording.stop();
+                recording.dump(file);
+            }
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .toList();
+    }
+}
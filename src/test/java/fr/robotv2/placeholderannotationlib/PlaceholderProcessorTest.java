@@ -1,12 +1,34 @@
 package fr.robotv2.placeholderannotationlib;
 
+import fr.robotv2.placeholderannotationlib.annotations.DefaultPlaceholder;
+import fr.robotv2.placeholderannotationlib.annotations.Depends;
+import fr.robotv2.placeholderannotationlib.annotations.Placeholder;
+import fr.robotv2.placeholderannotationlib.api.BasePlaceholderExpansion;
+import fr.robotv2.placeholderannotationlib.api.KeyedValueResolver;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderAnnotationProcessor;
+import fr.robotv2.placeholderannotationlib.api.PlaceholderSubscription;
+import fr.robotv2.placeholderannotationlib.api.PublishedPlaceholder;
 import fr.robotv2.placeholderannotationlib.impl.PlaceholderAnnotationProcessorImpl;
+import fr.robotv2.placeholderannotationlib.util.CacheSystem;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,13 +38,14 @@ import static org.mockito.Mockito.when;
 public class PlaceholderProcessorTest {
 
     private PlaceholderAnnotationProcessorImpl processor;
+    private TestExpansion expansion;
     private OfflinePlayer mockOfflinePlayer;
     private Player mockOnlinePlayer;
 
     @BeforeEach
     public void setup() {
         processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false);
-        new TestExpansion(processor);
+        expansion = new TestExpansion(processor);
 
         mockOfflinePlayer = mock(OfflinePlayer.class);
         when(mockOfflinePlayer.getName()).thenReturn("Steve");
@@ -180,6 +203,126 @@ public class PlaceholderProcessorTest {
         assertEquals("Direct override", result);
     }
 
+    @Test
+    public void testPublishedPlaceholder() {
+        PublishedPlaceholder faction = processor.registerPublished("Faction_Name");
+        assertNull(processor.process(mockOfflinePlayer, "faction_name"));
+
+        faction.publish("Wilderness");
+        assertEquals("Wilderness", processor.process(mockOfflinePlayer, "faction_name"));
+        assertEquals("Wilderness", processor.process(null, "faction_name"));
+
+        faction.publish("Wanderers");
+        assertEquals("Wanderers", processor.process(mockOnlinePlayer, "faction_name"));
+    }
+
+    @Test
+    public void testPublishedPlaceholderPerPlayer() {
+        PublishedPlaceholder faction = processor.registerPublished("faction_name");
+        faction.publish("Wilderness");
+        faction.publish(mockOnlinePlayer.getUniqueId(), "Knights");
+
+        assertEquals("Knights", processor.process(mockOnlinePlayer, "faction_name"));
+        assertEquals("Wilderness", processor.process(mockOfflinePlayer, "faction_name"));
+
+        faction.publish(mockOnlinePlayer.getUniqueId(), null);
+        assertEquals("Wilderness", processor.process(mockOnlinePlayer, "faction_name"));
+    }
+
+    @Test
+    public void testPublishedValuesOfPlayersAreDroppedOnQuit() {
+        PublishedPlaceholder faction = processor.registerPublished("faction_name");
+        faction.publish("Wilderness");
+        faction.publish(mockOnlinePlayer.getUniqueId(), "Knights");
+        faction.publish(mockOfflinePlayer.getUniqueId(), "Pirates");
+
+        processor.onQuit(new PlayerQuitEvent(mockOnlinePlayer, "left"));
+        assertEquals("Wilderness", faction.get(mockOnlinePlayer.getUniqueId()));
+        assertEquals("Wilderness", processor.process(mockOnlinePlayer, "faction_name"));
+        assertEquals("Pirates", processor.process(mockOfflinePlayer, "faction_name"));
+    }
+
+    @Test
+    public void testSubscriptionsOfPlayersAreClosedOnQuit() {
+        PlaceholderSubscription leaving = processor.subscribe(mockOnlinePlayer, "field_name");
+        PlaceholderSubscription staying = processor.subscribe(mockOfflinePlayer, "field_name");
+        PlaceholderSubscription global = processor.subscribe(null, "field_name");
+
+        processor.onQuit(new PlayerQuitEvent(mockOnlinePlayer, "left"));
+        assertTrue(leaving.isClosed());
+        assertFalse(leaving.refresh());
+        assertFalse(staying.isClosed());
+        assertFalse(global.isClosed());
+        assertEquals(Set.of(staying, global), Set.copyOf(processor.refreshSubscriptions()));
+    }
+
+    @Test
+    public void testPublishedPlaceholderIgnoresTrailingArguments() {
+        processor.registerPublished("faction_name").publish("Wilderness");
+        assertEquals("Wilderness", processor.process(mockOfflinePlayer, "faction_name_extra"));
+        assertTrue(processor.registeredPlaceholders().contains("faction_name"));
+    }
+
+    @Test
+    public void testSubscriptionOnlyDeliversChanges() {
+        List<String> delivered = new ArrayList<>();
+        PlaceholderSubscription subscription = processor.subscribe(mockOfflinePlayer, "field_counter", delivered::add);
+
+        assertTrue(subscription.refresh());
+        assertFalse(subscription.refresh());
+        assertEquals("1", subscription.value());
+
+        expansion.counterField = 2;
+        assertTrue(subscription.refresh());
+        assertFalse(subscription.refresh());
+        assertEquals(List.of("1", "2"), delivered);
+    }
+
+    @Test
+    public void testSubscriptionToPublishedPlaceholder() {
+        PublishedPlaceholder faction = processor.registerPublished("faction_name");
+        faction.publish("Wilderness");
+        List<String> delivered = new ArrayList<>();
+        PlaceholderSubscription subscription = processor.subscribe(mockOnlinePlayer, "faction_name", delivered::add);
+
+        assertTrue(subscription.refresh());
+        assertFalse(subscription.refresh());
+
+        faction.publish("Wilderness");
+        assertFalse(subscription.refresh());
+
+        faction.publish(mockOnlinePlayer.getUniqueId(), "Knights");
+        assertTrue(subscription.refresh());
+        assertEquals(List.of("Wilderness", "Knights"), delivered);
+    }
+
+    @Test
+    public void testSubscriptionFollowsNewRoutes() {
+        PlaceholderSubscription subscription = processor.subscribe(mockOfflinePlayer, "field_value");
+        assertTrue(subscription.refresh());
+        assertEquals("Field placeholder value", subscription.value());
+
+        processor.registerDirect("field_value", actor -> "Direct override");
+        assertTrue(subscription.refresh());
+        assertEquals("Direct override", subscription.value());
+    }
+
+    @Test
+    public void testRefreshSubscriptionsReturnsChangedOnes() {
+        PlaceholderSubscription counter = processor.subscribe(mockOfflinePlayer, "field_counter");
+        PlaceholderSubscription name = processor.subscribe(mockOfflinePlayer, "field_name");
+        PlaceholderSubscription closed = processor.subscribe(mockOfflinePlayer, "field_value");
+        closed.close();
+
+        assertEquals(2, processor.refreshSubscriptions().size());
+        assertNull(closed.value());
+
+        expansion.nameField = "Alex";
+        assertEquals(List.of(name), processor.refreshSubscriptions());
+        assertEquals("1", counter.value());
+        assertEquals("Alex", name.value());
+    }
+
     @Test
     public void testDirectPlaceholderInRegisteredList() {
         processor.registerDirect("list_test", actor -> "Listed");
@@ -199,4 +342,386 @@ public class PlaceholderProcessorTest {
         String resultOnline = processor.process(mockOnlinePlayer, "online_only");
         assertEquals("Online player: Alex", resultOnline);
     }
+
+    @Test
+    public void testFormattedResult() {
+        String result = processor.process(mockOfflinePlayer, "format_balance");
+        assertEquals("1,234,567.89", result);
+    }
+
+    @Test
+    public void testCompactResult() {
+        assertEquals("999", processor.process(mockOfflinePlayer, "format_compact_999"));
+        assertEquals("1.2k", processor.process(mockOfflinePlayer, "format_compact_1234"));
+        assertEquals("3M", processor.process(mockOfflinePlayer, "format_compact_3000000"));
+        assertEquals("-4.5B", processor.process(mockOfflinePlayer, "format_compact_-4500000000"));
+        assertEquals("1M", processor.process(mockOfflinePlayer, "format_compact_999950"));
+        assertEquals("999.9k", processor.process(mockOfflinePlayer, "format_compact_999949"));
+        assertEquals("9223372T", processor.process(mockOfflinePlayer, "format_compact_9223372036854775807"));
+        assertEquals("-9223372T", processor.process(mockOfflinePlayer, "format_compact_-9223372036854775808"));
+    }
+
+    @Test
+    public void testFormattedField() {
+        String result = processor.process(mockOfflinePlayer, "format_field");
+        assertEquals("7.0", result);
+    }
+
+    @Test
+    public void testFinalFieldPlaceholder() {
+        assertEquals("1000", processor.process(mockOfflinePlayer, "field_constant"));
+        assertSame(processor.process(mockOfflinePlayer, "field_constant"), processor.process(mockOfflinePlayer, "field_constant"));
+    }
+
+    @Test
+    public void testMutableFieldPlaceholderTracksChanges() {
+        assertEquals("1", processor.process(mockOfflinePlayer, "field_counter"));
+        expansion.counterField = 2;
+        assertEquals("2", processor.process(mockOfflinePlayer, "field_counter"));
+
+        assertEquals("Steve", processor.process(mockOfflinePlayer, "field_name"));
+        expansion.nameField = "Alex";
+        assertEquals("Alex", processor.process(mockOfflinePlayer, "field_name"));
+    }
+
+    @Test
+    public void testStaticFieldPlaceholder() {
+        assertEquals("2.5", processor.process(mockOfflinePlayer, "field_static"));
+        TestExpansion.staticField = 3.5;
+        assertEquals("3.5", processor.process(mockOfflinePlayer, "field_static"));
+        TestExpansion.staticField = 2.5;
+    }
+
+    @Test
+    public void testDependencyInjection() {
+        String result = processor.process(mockOfflinePlayer, "stats_kdr");
+        assertEquals("2.50", result);
+    }
+
+    @Test
+    public void testFormattedDependencyIsInjectedAsItsValue() {
+        assertEquals("1,234.00", processor.process(mockOfflinePlayer, "stats_coins"));
+        assertEquals("1.5k", processor.process(mockOfflinePlayer, "stats_views"));
+        // Typed parameters get the values, strings the renderings.
+        assertEquals("2734.0 from 1,234.00", processor.process(mockOfflinePlayer, "stats_wealth"));
+    }
+
+    @Test
+    public void testDependencyComputedOncePerEvaluation() {
+        String result = processor.process(mockOfflinePlayer, "stats_summary_pvp");
+        assertEquals("pvp: 30 kills, 2.50 kdr", result);
+        assertEquals(1, expansion.killsCalls);
+    }
+
+    @Test
+    public void testProcessAllSharesDependencies() {
+        Map<String, String> results = processor.processAll(mockOfflinePlayer, Arrays.asList("stats_kills", "stats_kdr", "stats_summary_all"));
+        assertEquals("30", results.get("stats_kills"));
+        assertEquals("2.50", results.get("stats_kdr"));
+        assertEquals("all: 30 kills, 2.50 kdr", results.get("stats_summary_all"));
+        assertEquals(1, expansion.killsCalls);
+    }
+
+    @Test
+    public void testProcessAllKeepsTheCaseOfArguments() {
+        Map<String, String> results = processor.processAll(mockOfflinePlayer, List.of("OPTIONAL_TEST_MixedCase"));
+        assertEquals("Value: MixedCase", results.get("OPTIONAL_TEST_MixedCase"));
+        assertEquals(processor.process(mockOfflinePlayer, "OPTIONAL_TEST_MixedCase"), results.get("OPTIONAL_TEST_MixedCase"));
+    }
+
+    @Test
+    public void testDependencyCycleRejected() {
+        assertThrows(IllegalStateException.class, () -> new CyclicExpansion(processor));
+        assertFalse(processor.registeredPlaceholders().contains("cycle_a"));
+    }
+
+    @Test
+    public void testRejectedExpansionLeavesTheDefaultPlaceholderUnchanged() {
+        PlaceholderAnnotationProcessorImpl fresh = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false);
+        assertThrows(IllegalStateException.class, () -> new CyclicDefaultExpansion(fresh));
+        assertNull(fresh.process(mockOfflinePlayer, ""));
+        assertEquals("", fresh.process(mockOfflinePlayer, "unknown_with_args"));
+
+        // The rejected default was never installed, so a valid one can still be registered.
+        new TestExpansion(fresh);
+        assertEquals("Default output with,args", fresh.process(mockOfflinePlayer, "unknown_with_args"));
+        assertThrows(IllegalStateException.class, () -> new CyclicDefaultExpansion(fresh));
+        assertEquals("Default output with,args", fresh.process(mockOfflinePlayer, "unknown_with_args"));
+    }
+
+    public static class CyclicDefaultExpansion extends BasePlaceholderExpansion {
+
+        public CyclicDefaultExpansion(PlaceholderAnnotationProcessor processor) {
+            super(processor);
+        }
+
+        @Placeholder({"loop", "a"})
+        public String a(@Depends({"loop", "b"}) String b) {
+            return b;
+        }
+
+        @Placeholder({"loop", "b"})
+        public String b(@Depends({"loop", "a"}) String a) {
+            return a;
+        }
+
+        @DefaultPlaceholder
+        public String fallback(String... args) {
+            return "Cyclic default";
+        }
+
+        @Override
+        public String getIdentifier() {
+            return "cyclicdefault";
+        }
+    }
+
+    public static class CyclicExpansion extends BasePlaceholderExpansion {
+
+        public CyclicExpansion(PlaceholderAnnotationProcessor processor) {
+            super(processor);
+        }
+
+        @Placeholder({"cycle", "a"})
+        public String a(@Depends({"cycle", "b"}) String b) {
+            return b;
+        }
+
+        @Placeholder({"cycle", "b"})
+        public String b(@Depends({"cycle", "a"}) String a) {
+            return a;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return "cyclic";
+        }
+    }
+
+    @Test
+    public void testCompactCacheHitAndExpiry() throws InterruptedException {
+        PlaceholderAnnotationProcessor compactProcessor = new PlaceholderAnnotationProcessor.Builder()
+                .logger(Logger.getLogger("Test"))
+                .compactCache(true)
+                .build();
+        new TestExpansion(compactProcessor);
+
+        assertEquals("C1", compactProcessor.process(mockOfflinePlayer, "cached_value"));
+        assertEquals("C1", compactProcessor.process(mockOfflinePlayer, "cached_value"));
+
+        Thread.sleep(150);
+        assertEquals("C2", compactProcessor.process(mockOfflinePlayer, "cached_value"));
+    }
+
+    @Test
+    public void testIdenticalResultsOfPlayersShareOneInstance() {
+        CacheSystem.INSTANCE.invalidate("cached_group:"::equals);
+        PlaceholderAnnotationProcessor interning = new PlaceholderAnnotationProcessor.Builder()
+                .logger(Logger.getLogger("Test"))
+                .build();
+        new TestExpansion(interning);
+
+        String first = interning.process(mockOfflinePlayer, "cached_group");
+        String second = interning.process(mockOnlinePlayer, "cached_group");
+        assertEquals("VIP", first);
+        assertSame(first, second);
+        // Hits return the cached instance, which is the shared one.
+        assertSame(first, interning.process(mockOfflinePlayer, "cached_group"));
+        assertSame(first, interning.process(mockOnlinePlayer, "cached_group"));
+        CacheSystem.INSTANCE.invalidate("cached_group:"::equals);
+    }
+
+    @Test
+    public void testResultsAreNotInternedWithTheCompactCache() {
+        PlaceholderAnnotationProcessor compact = new PlaceholderAnnotationProcessor.Builder()
+                .logger(Logger.getLogger("Test"))
+                .compactCache(true)
+                .build();
+        new TestExpansion(compact);
+
+        // Hits decode a new string anyway, interning would only cost a lookup.
+        assertNotSame(compact.process(mockOfflinePlayer, "cached_group"), compact.process(mockOnlinePlayer, "cached_group"));
+        assertNotSame(compact.process(mockOfflinePlayer, "cached_group"), compact.process(mockOfflinePlayer, "cached_group"));
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneInvocation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return processor.process(mockOfflinePlayer, "slow_cached");
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("S1", result.get());
+            }
+            assertEquals(1, expansion.slowCalls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEnumParameterIsCaseInsensitive() {
+        assertEquals("Rank: VIP", processor.process(mockOfflinePlayer, "enum_rank_vip"));
+        assertEquals("Rank: ADMIN", processor.process(mockOfflinePlayer, "enum_rank_AdMiN"));
+        assertEquals("3", processor.process(mockOfflinePlayer, "enum_ranks_member_vip_admin"));
+    }
+
+    @Test
+    public void testUnknownEnumConstantReturnsNull() {
+        assertNull(processor.process(mockOfflinePlayer, "enum_rank_owner"));
+        assertNull(processor.process(mockOfflinePlayer, "enum_ranks_member_owner"));
+    }
+
+    @Test
+    public void testKeyedValueResolver() {
+        processor.registerValueResolver(TestExpansion.Kit.class, KeyedValueResolver.of(Map.of(
+                "Starter", new TestExpansion.Kit("Starter kit"),
+                "PvP", new TestExpansion.Kit("PvP kit")
+        )));
+
+        assertEquals("Starter kit", processor.process(mockOfflinePlayer, "kit_name_starter"));
+        assertEquals("PvP kit", processor.process(mockOfflinePlayer, "kit_name_PVP"));
+        assertNull(processor.process(mockOfflinePlayer, "kit_name_unknown"));
+    }
+
+    @Test
+    public void testKeyedValueResolverIsRefreshedOnDemand() {
+        Map<String, TestExpansion.Kit> kits = new HashMap<>();
+        kits.put("Starter", new TestExpansion.Kit("Starter kit"));
+        KeyedValueResolver<TestExpansion.Kit> resolver = KeyedValueResolver.of(kits);
+        processor.registerValueResolver(TestExpansion.Kit.class, resolver);
+
+        kits.put("Daily", new TestExpansion.Kit("Daily kit"));
+        assertNull(processor.process(mockOfflinePlayer, "kit_name_daily"));
+        assertEquals("Daily kit", resolver.resolve(null, "DAILY").displayName());
+
+        processor.refreshKeyedValueResolvers();
+        assertEquals("Daily kit", processor.process(mockOfflinePlayer, "kit_name_daily"));
+    }
+
+    @Test
+    public void testRepeatedUnknownPlaceholderIsCounted() {
+        assertEquals("", processor.process(mockOfflinePlayer, "nonexistent_placeholder"));
+        assertEquals("", processor.process(mockOfflinePlayer, "nonexistent_placeholder"));
+        assertEquals("Default output arg1,arg2", processor.process(mockOfflinePlayer, "some_random_placeholder_arg1_arg2"));
+        assertEquals("Default output arg1,arg2", processor.process(mockOfflinePlayer, "some_random_placeholder_arg1_arg2"));
+        assertEquals(4, processor.unknownPlaceholderRequests());
+    }
+
+    @Test
+    public void testUnknownPrefixKeepsTheArgumentsOfEachRequest() {
+        assertEquals("Default output Steve,1", processor.process(mockOfflinePlayer, "missing_balance_Steve_1"));
+        assertEquals("Default output Alex,2", processor.process(mockOfflinePlayer, "missing_balance_Alex_2"));
+        assertEquals("", processor.process(mockOfflinePlayer, "missing_balance"));
+        assertEquals(3, processor.unknownPlaceholderRequests());
+    }
+
+    @Test
+    public void testUnknownIdUnderAKnownPrefixIsRemembered() {
+        // "stats" is the first segment of registered ids, only the whole params are unknown.
+        assertEquals("Default output x,y", processor.process(mockOfflinePlayer, "stats_kilss_x_y"));
+        assertEquals("Default output x,y", processor.process(mockOfflinePlayer, "stats_kilss_x_y"));
+        assertEquals(2, processor.unknownPlaceholderRequests());
+
+        processor.registerDirect("stats_kilss", actor -> "Registered later");
+        assertEquals("Registered later", processor.process(mockOfflinePlayer, "stats_kilss_x_y"));
+        assertEquals(2, processor.unknownPlaceholderRequests());
+    }
+
+    @Test
+    public void testRegistrationInvalidatesUnknownPlaceholders() {
+        assertEquals("", processor.process(mockOfflinePlayer, "late_placeholder"));
+
+        processor.registerDirect("late_placeholder", actor -> "Registered later");
+        assertEquals("Registered later", processor.process(mockOfflinePlayer, "late_placeholder"));
+    }
+
+    @Test
+    public void testFirstRegisteredOfTheSameShapeIsRoutedTo() {
+        for (int i = 0; i < 32; i++) {
+            processor.registerDirect("shape_{v" + i + "}", actor -> "First");
+            processor.registerDirect("shape_{w" + i + "}_" + i, actor -> "Other");
+        }
+
+        assertEquals("First", processor.process(mockOfflinePlayer, "shape_x"));
+        assertEquals("Other", processor.process(mockOfflinePlayer, "shape_x_3"));
+    }
+
+    @Test
+    public void testAdaptiveTtlGrowsWhileResultIsStable() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl adaptive = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false, new CompactCacheSystem());
+        new TestExpansion(adaptive);
+        assertEquals(Duration.ofMillis(20), adaptive.cacheTtls().get("adaptive_stable"));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Stable", adaptive.process(mockOfflinePlayer, "adaptive_stable"));
+            Thread.sleep(adaptive.cacheTtls().get("adaptive_stable").toMillis() + 15);
+        }
+
+        assertEquals(Duration.ofMillis(60), adaptive.cacheTtls().get("adaptive_stable"));
+    }
+
+    @Test
+    public void testAdaptiveTtlShrinksWhenResultChanges() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl adaptive = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false, new CompactCacheSystem());
+        new TestExpansion(adaptive);
+
+        assertEquals("1", adaptive.process(mockOfflinePlayer, "adaptive_volatile"));
+        Thread.sleep(55);
+        assertEquals("2", adaptive.process(mockOfflinePlayer, "adaptive_volatile"));
+        assertEquals(Duration.ofMillis(20), adaptive.cacheTtls().get("adaptive_volatile"));
+
+        Thread.sleep(35);
+        assertEquals("3", adaptive.process(mockOfflinePlayer, "adaptive_volatile"));
+        assertEquals(Duration.ofMillis(10), adaptive.cacheTtls().get("adaptive_volatile"));
+    }
+
+    @Test
+    public void testAdaptiveTtlForgetsPlayersWhoQuit() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl adaptive = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false, new CompactCacheSystem());
+        new TestExpansion(adaptive);
+
+        assertEquals("1", adaptive.process(mockOnlinePlayer, "adaptive_volatile"));
+        adaptive.onQuit(new PlayerQuitEvent(mockOnlinePlayer, "left"));
+        Thread.sleep(55);
+
+        // Nothing left to compare the new result with, so the TTL is unchanged.
+        assertEquals("2", adaptive.process(mockOnlinePlayer, "adaptive_volatile"));
+        assertEquals(Duration.ofMillis(40), adaptive.cacheTtls().get("adaptive_volatile"));
+    }
+
+    @Test
+    public void testCacheTtlsListFixedTtls() {
+        assertEquals(Duration.ofHours(1), processor.cacheTtls().get("budget_cached"));
+        assertFalse(processor.cacheTtls().containsKey("field_value"));
+    }
+
+    @Test
+    public void testMidPathVariables() {
+        assertEquals("Player #3", processor.process(mockOfflinePlayer, "top_3_name"));
+        assertEquals("300", processor.process(mockOfflinePlayer, "TOP_3_VALUE"));
+        assertEquals("Player Notch", processor.process(mockOfflinePlayer, "top_Notch_name"));
+    }
+
+    @Test
+    public void testLiteralRouteIsMoreSpecificThanVariable() {
+        assertEquals("Champion", processor.process(mockOfflinePlayer, "top_1_name"));
+        assertEquals("Player #2", processor.process(mockOfflinePlayer, "top_2_name"));
+    }
+
+    @Test
+    public void testTypedVariableWithTrailingArguments() {
+        assertEquals("2.5", processor.process(mockOfflinePlayer, "scale_2.5"));
+        assertEquals("5.0", processor.process(mockOfflinePlayer, "scale_2.5_2"));
+        assertEquals("", processor.process(mockOfflinePlayer, "scale_big"));
+    }
 }
@@ -0,0 +1,103 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.util.PlayerIndex;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PlayerIndexTest {
+
+    private static final UUID STEVE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID ALEX = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @Test
+    public void testJoinedPlayersAreIndexedIgnoringCase() {
+        PlayerIndex index = new PlayerIndex(() -> new OfflinePlayer[0]);
+        index.onJoin(new PlayerJoinEvent(player(STEVE, "Steve"), "joined"));
+
+        assertEquals(STEVE, index.getUniqueId("Steve"));
+        assertEquals(STEVE, index.getUniqueId("steve"));
+        assertEquals(STEVE, index.getUniqueId("STEVE"));
+        assertNull(index.getUniqueId("Alex"));
+    }
+
+    @Test
+    public void testRenamedPlayersLoseTheirOldName() {
+        PlayerIndex index = new PlayerIndex(() -> new OfflinePlayer[0]);
+        index.onJoin(new PlayerJoinEvent(player(STEVE, "Steve"), "joined"));
+        assertEquals(STEVE, index.getUniqueId("Steve"));
+
+        index.onQuit(new PlayerQuitEvent(player(STEVE, "Notch"), "left"));
+        assertNull(index.getUniqueId("Steve"));
+        assertEquals(STEVE, index.getUniqueId("Notch"));
+        assertEquals(1, index.size());
+
+        // The old name is then taken by someone else.
+        index.onJoin(new PlayerJoinEvent(player(ALEX, "Steve"), "joined"));
+        assertEquals(ALEX, index.getUniqueId("Steve"));
+        assertEquals(STEVE, index.getUniqueId("Notch"));
+    }
+
+    @Test
+    public void testLookupsMissUntilThePreloadCompletes() {
+        OfflinePlayer known = player(ALEX, "Alex");
+        PlayerIndex index = new PlayerIndex(() -> new OfflinePlayer[]{known, player(STEVE, "Herobrine")});
+        List<Runnable> pending = new ArrayList<>();
+
+        index.preload(pending::add);
+        index.onJoin(new PlayerJoinEvent(player(STEVE, "Steve"), "joined"));
+        assertFalse(index.isPreloaded());
+        assertNull(index.getUniqueId("Alex"));
+        assertEquals(STEVE, index.getUniqueId("Steve"));
+
+        pending.forEach(Runnable::run);
+        assertTrue(index.isPreloaded());
+        assertEquals(ALEX, index.getUniqueId("alex"));
+        // The name seen on join is more recent than the one known by the server.
+        assertNull(index.getUniqueId("Herobrine"));
+        assertEquals(STEVE, index.getUniqueId("Steve"));
+    }
+
+    @Test
+    public void testNamesMissedByTheIndexAreLookedUpOnceInTheBackground() {
+        List<Runnable> pending = new ArrayList<>();
+        List<String> lookups = new ArrayList<>();
+        Player alex = player(ALEX, "Alex");
+        when(alex.hasPlayedBefore()).thenReturn(true);
+        PlayerIndex index = new PlayerIndex(() -> new OfflinePlayer[0], name -> {
+            lookups.add(name);
+            return name.equals("Alex") ? alex : player(STEVE, name);
+        }, pending::add);
+
+        assertNull(index.getOfflinePlayer("Alex"));
+        assertNull(index.getOfflinePlayer("alex"));
+        assertNull(index.getOfflinePlayer("Nobody"));
+        // The preload was started by the first lookup, then one lookup per name.
+        assertEquals(3, pending.size());
+        pending.forEach(Runnable::run);
+
+        assertTrue(index.isPreloaded());
+        assertEquals(List.of("Alex", "Nobody"), lookups);
+        assertEquals(ALEX, index.getUniqueId("Alex"));
+        // Never played: remembered as unknown rather than looked up again.
+        assertNull(index.getOfflinePlayer("Nobody"));
+        assertEquals(2, lookups.size());
+    }
+
+    private static Player player(UUID uuid, String name) {
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(uuid);
+        when(player.getName()).thenReturn(name);
+        return player;
+    }
+}
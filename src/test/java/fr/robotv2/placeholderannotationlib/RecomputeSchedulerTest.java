@@ -0,0 +1,137 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.annotations.CostClass;
+import fr.robotv2.placeholderannotationlib.impl.PlaceholderAnnotationProcessorImpl;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import fr.robotv2.placeholderannotationlib.util.RecomputeScheduler;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RecomputeSchedulerTest {
+
+    @Test
+    public void testTickStopsOnceBudgetIsSpent() {
+        RecomputeScheduler scheduler = new RecomputeScheduler(1, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(CostClass.EXPENSIVE, () -> sleep(5));
+        }
+
+        assertEquals(1, scheduler.tick());
+        assertEquals(2, scheduler.backlog());
+        assertEquals(1, scheduler.tick());
+        assertEquals(1, scheduler.tick());
+        assertEquals(0, scheduler.backlog());
+        assertEquals(0, scheduler.tick());
+    }
+
+    @Test
+    public void testModerateRecomputationsRunFirst() {
+        RecomputeScheduler scheduler = new RecomputeScheduler(1, TimeUnit.SECONDS);
+        List<String> order = new ArrayList<>();
+        scheduler.submit(CostClass.EXPENSIVE, () -> order.add("expensive"));
+        scheduler.submit(CostClass.MODERATE, () -> order.add("moderate"));
+
+        assertEquals(2, scheduler.tick());
+        assertEquals(List.of("moderate", "expensive"), order);
+    }
+
+    @Test
+    public void testFailingRecomputationDoesNotSkipTheOthers() {
+        RecomputeScheduler scheduler = new RecomputeScheduler(1, TimeUnit.SECONDS, Logger.getLogger("Test"));
+        List<String> order = new ArrayList<>();
+        scheduler.submit(CostClass.MODERATE, () -> {
+            throw new IllegalStateException("Database is down");
+        });
+        scheduler.submit(CostClass.EXPENSIVE, () -> order.add("expensive"));
+
+        assertEquals(2, scheduler.tick());
+        assertEquals(List.of("expensive"), order);
+        assertEquals(0, scheduler.backlog());
+    }
+
+    @Test
+    public void testCheapRecomputationsAreRejected() {
+        RecomputeScheduler scheduler = new RecomputeScheduler(1, TimeUnit.MILLISECONDS);
+        assertThrows(IllegalArgumentException.class, () -> scheduler.submit(CostClass.CHEAP, () -> {}));
+    }
+
+    @Test
+    public void testExpiredExpensiveResultIsServedStaleUntilTick() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false,
+                new CompactCacheSystem(), false, new RecomputeScheduler(1, TimeUnit.MILLISECONDS));
+        TestExpansion expansion = new TestExpansion(processor);
+
+        OfflinePlayer player = mock(OfflinePlayer.class);
+        when(player.getUniqueId()).thenReturn(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+
+        // Nothing to serve yet: computed on the requesting thread.
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        assertEquals(0, processor.recomputeBacklog());
+
+        Thread.sleep(80);
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        assertEquals(1, processor.recomputeBacklog());
+        assertEquals(1, expansion.expensiveCalls);
+
+        assertEquals(1, processor.tick());
+        assertEquals(0, processor.recomputeBacklog());
+        assertEquals("E2", processor.process(player, "expensive_cached"));
+    }
+
+    @Test
+    public void testLastResultsOfPlayersAreDroppedOnQuit() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false,
+                new CompactCacheSystem(), false, new RecomputeScheduler(1, TimeUnit.MILLISECONDS));
+        TestExpansion expansion = new TestExpansion(processor);
+
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        Thread.sleep(80);
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        assertEquals(1, processor.recomputeBacklog());
+
+        processor.onQuit(new PlayerQuitEvent(player, "left"));
+        // The queued recomputation is skipped, and nothing is left to be served stale.
+        assertEquals(1, processor.tick());
+        assertEquals(1, expansion.expensiveCalls);
+        assertEquals("E2", processor.process(player, "expensive_cached"));
+    }
+
+    @Test
+    public void testExpensiveResultIsComputedInlineWithoutBudget() throws InterruptedException {
+        PlaceholderAnnotationProcessorImpl processor = new PlaceholderAnnotationProcessorImpl("_", Logger.getLogger("Test"), false,
+                new CompactCacheSystem());
+        new TestExpansion(processor);
+
+        OfflinePlayer player = mock(OfflinePlayer.class);
+        when(player.getUniqueId()).thenReturn(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+
+        assertEquals("E1", processor.process(player, "expensive_cached"));
+        Thread.sleep(80);
+        assertEquals("E2", processor.process(player, "expensive_cached"));
+        assertEquals(0, processor.tick());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.util.ResultFormatter;
+import fr.robotv2.placeholderannotationlib.util.ResultInterner;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultInternerTest {
+
+    @Test
+    public void testEqualResultsShareOneInstance() {
+        ResultInterner interner = new ResultInterner(64);
+        String first = interner.intern(new String("Diamond"));
+        String second = interner.intern(new String("Diamond"));
+
+        assertEquals("Diamond", second);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testSmallIntegersArePrecomputed() {
+        ResultInterner first = new ResultInterner(1);
+        ResultInterner second = new ResultInterner(1);
+
+        assertSame(first.intern(new String("42")), second.intern(new String("42")));
+        assertSame(first.intern(new String("-128")), ResultInterner.smallInteger(-128));
+        assertSame(ResultInterner.smallInteger(1024), ResultInterner.smallInteger(1024L));
+        assertNull(ResultInterner.smallInteger(1025));
+        assertNull(ResultInterner.smallInteger(-129));
+    }
+
+    @Test
+    public void testOnlyCanonicalIntegersArePrecomputed() {
+        ResultInterner interner = new ResultInterner(64);
+
+        assertEquals("007", interner.intern("007"));
+        assertEquals("-0", interner.intern("-0"));
+        assertEquals("-", interner.intern("-"));
+        assertEquals("+5", interner.intern("+5"));
+        assertEquals("", interner.intern(""));
+    }
+
+    @Test
+    public void testLongResultsAreLeftAsTheyAre() {
+        ResultInterner interner = new ResultInterner(64);
+        String value = "x".repeat(33);
+
+        interner.intern(value);
+        assertNotSame(value, interner.intern(new String(value)));
+    }
+
+    @Test
+    public void testPoolStaysBounded() {
+        ResultInterner interner = new ResultInterner(1);
+        String first = interner.intern(new String("first"));
+        interner.intern(new String("second"));
+
+        // The single slot went to the latest value.
+        assertNotSame(first, interner.intern(new String("first")));
+    }
+
+    @Test
+    public void testPlainFormatterReturnsPrecomputedIntegers() {
+        assertSame(ResultInterner.smallInteger(7), ResultFormatter.plain().format(7));
+        assertSame(ResultInterner.smallInteger(-3), ResultFormatter.plain().format(-3L));
+        assertEquals("100000", ResultFormatter.plain().format(100_000));
+    }
+}
@@ -0,0 +1,100 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.util.RouteTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteTableTest {
+
+    private static RouteTable<String> table(String... ids) {
+        Map<String, String> routes = new LinkedHashMap<>();
+        for (String id : ids) {
+            routes.put(id, id);
+        }
+        return RouteTable.compile(routes, "_");
+    }
+
+    @Test
+    public void testLongestMatchKeepsTrailingArguments() {
+        RouteTable<String> table = table("player", "player_stats", "player_stats_kills");
+
+        RouteTable.Match<String> match = table.match("Player_Stats_Kills_Extra_More");
+        assertEquals("player_stats_kills", match.value());
+        assertArrayEquals(new String[]{"Extra", "More"}, match.args());
+
+        assertEquals("player_stats", table.match("player_stats_deaths").value());
+        assertNull(table.match("stats_kills"));
+    }
+
+    @Test
+    public void testArgumentsSplitLikeStringSplit() {
+        RouteTable<String> table = table("a_b");
+
+        assertArrayEquals(new String[0], table.match("a_b").args());
+        assertArrayEquals(new String[0], table.match("a_b__").args());
+        assertArrayEquals(new String[]{"", "x"}, table.match("a_b__x").args());
+        assertArrayEquals(new String[]{"x", "y"}, table.match("a_b_x_y_").args());
+    }
+
+    @Test
+    public void testVariablesComeBeforeTrailingArguments() {
+        RouteTable<String> table = table("top_{int}_name");
+
+        RouteTable.Match<String> match = table.match("top_-12_name_extra");
+        assertEquals("top_{int}_name", match.id());
+        assertArrayEquals(new String[]{"-12", "extra"}, match.args());
+        assertNull(table.match("top_first_name"));
+        assertNull(table.match("top_1.5_name"));
+    }
+
+    @Test
+    public void testMostSpecificRouteWins() {
+        RouteTable<String> table = table("top_{any}", "top_{double}", "top_{int}", "top_1");
+
+        assertEquals("top_1", table.match("top_1").value());
+        assertEquals("top_{int}", table.match("top_2").value());
+        assertEquals("top_{double}", table.match("top_2.5").value());
+        assertEquals("top_{any}", table.match("top_x").value());
+    }
+
+    @Test
+    public void testFirstOfTheSameShapeWins() {
+        RouteTable<String> table = table("top_{b}", "top_{a}", "top_{long}", "top_{int}");
+
+        assertEquals("top_{b}", table.match("top_x").value());
+        assertEquals("top_{long}", table.match("top_1").value());
+        assertEquals(RouteTable.shape("top_{a}", "_"), RouteTable.shape("TOP_{b}", "_"));
+        assertEquals(RouteTable.shape("top_{int}", "_"), RouteTable.shape("top_{long}", "_"));
+        assertNotEquals(RouteTable.shape("top_{int}", "_"), RouteTable.shape("top_{a}", "_"));
+    }
+
+    @Test
+    public void testLongerVariableRouteBeatsShorterLiteralRoute() {
+        RouteTable<String> table = table("top", "top_{int}_name");
+
+        assertEquals("top_{int}_name", table.match("top_1_name").value());
+        RouteTable.Match<String> shorter = table.match("top_1_value");
+        assertEquals("top", shorter.value());
+        assertArrayEquals(new String[]{"1", "value"}, shorter.args());
+    }
+
+    @Test
+    public void testMultiCharacterSeparator() {
+        RouteTable<String> table = RouteTable.compile(Map.of("a::{int}", "route"), "::");
+
+        RouteTable.Match<String> match = table.match("A::5::rest");
+        assertEquals("route", match.value());
+        assertArrayEquals(new String[]{"5", "rest"}, match.args());
+    }
+
+    @Test
+    public void testSharedPrefixesShareStates() {
+        RouteTable<String> table = table("a_b_c", "a_b_d", "a_x");
+        // Start, a, a_b, a_x, a_b_c, a_b_d.
+        assertEquals(6, table.stateCount());
+    }
+}
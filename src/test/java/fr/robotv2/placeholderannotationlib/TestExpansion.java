@@ -6,6 +6,7 @@ import fr.robotv2.placeholderannotationlib.api.PlaceholderActor;
 import fr.robotv2.placeholderannotationlib.api.PlaceholderAnnotationProcessor;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Expansion(
         identifier = "testexpansion",
@@ -16,6 +17,11 @@ import java.util.concurrent.TimeUnit;
 public class TestExpansion extends BasePlaceholderExpansion {
 
     private int cachedCalls = 0;
+    public int killsCalls = 0;
+    public final AtomicInteger slowCalls = new AtomicInteger();
+    public int networkCalls = 0;
+    public int expensiveCalls = 0;
+    public int volatileCalls = 0;
 
     public TestExpansion(PlaceholderAnnotationProcessor processor) {
         super(processor);
@@ -76,4 +82,159 @@ public class TestExpansion extends BasePlaceholderExpansion {
     public String varargsTest(PlaceholderActor actor, String prefix, int count, String... items) {
         return prefix + ":" + count + ":" + String.join(",", items);
     }
+
+    @Placeholder(value = {"format", "balance"}, format = "#,##0.00")
+    public double formattedBalance(PlaceholderActor actor) {
+        return 1234567.891;
+    }
+
+    @Placeholder(value = {"format", "compact"}, compact = true)
+    public long compactValue(PlaceholderActor actor, long value) {
+        return value;
+    }
+
+    @Placeholder(value = {"format", "field"}, format = "0.0")
+    public int formattedField = 7;
+
+    @Placeholder({"field", "constant"})
+    public final int constantField = 1000;
+
+    @Placeholder({"field", "counter"})
+    public int counterField = 1;
+
+    @Placeholder({"field", "name"})
+    public String nameField = "Steve";
+
+    @Placeholder({"field", "static"})
+    public static double staticField = 2.5;
+
+    @Placeholder({"stats", "kills"})
+    public int statsKills(PlaceholderActor actor) {
+        killsCalls++;
+        return 30;
+    }
+
+    @Placeholder({"stats", "deaths"})
+    public int statsDeaths(PlaceholderActor actor) {
+        return 12;
+    }
+
+    @Placeholder(value = {"stats", "kdr"}, format = "0.00")
+    public double statsKdr(@Depends({"stats", "kills"}) int kills, @Depends({"stats", "deaths"}) int deaths) {
+        return deaths == 0 ? kills : (double) kills / deaths;
+    }
+
+    @Placeholder(value = {"stats", "coins"}, format = "#,##0.00")
+    public double statsCoins(PlaceholderActor actor) {
+        return 1234;
+    }
+
+    @Placeholder(value = {"stats", "views"}, compact = true)
+    public long statsViews(PlaceholderActor actor) {
+        return 1500;
+    }
+
+    @Placeholder({"stats", "wealth"})
+    public String statsWealth(@Depends({"stats", "coins"}) double coins, @Depends({"stats", "views"}) int views, @Depends({"stats", "coins"}) String shown) {
+        return (coins + views) + " from " + shown;
+    }
+
+    @Placeholder({"stats", "summary"})
+    public String statsSummary(PlaceholderActor actor, @Depends({"stats", "kills"}) int kills, @Depends({"stats", "kdr"}) String kdr, String label) {
+        return label + ": " + kills + " kills, " + kdr + " kdr";
+    }
+
+    @Placeholder({"slow", "cached"})
+    @Cache(value = 5, unit = TimeUnit.SECONDS)
+    public String slowCached(PlaceholderActor actor) throws InterruptedException {
+        slowCalls.incrementAndGet();
+        Thread.sleep(100);
+        return "S" + slowCalls.get();
+    }
+
+    public enum Rank {
+        MEMBER, VIP, ADMIN
+    }
+
+    public record Kit(String displayName) {
+    }
+
+    @Placeholder({"enum", "rank"})
+    public String rank(PlaceholderActor actor, Rank rank) {
+        return "Rank: " + rank.name();
+    }
+
+    @Placeholder({"enum", "ranks"})
+    public int ranks(PlaceholderActor actor, Rank... ranks) {
+        return ranks.length;
+    }
+
+    @Placeholder({"kit", "name"})
+    public String kitName(PlaceholderActor actor, Kit kit) {
+        return kit.displayName();
+    }
+
+    @Placeholder({"budget", "cached"})
+    @Cache(value = 1, unit = TimeUnit.HOURS)
+    public String budgetCached(PlaceholderActor actor) {
+        return "Cached budget";
+    }
+
+    @Placeholder({"cached", "group"})
+    @Cache(value = 1, unit = TimeUnit.HOURS)
+    public String cachedGroup(PlaceholderActor actor) {
+        return new String("VIP"); // A distinct instance per call, like a value read from a database.
+    }
+
+    @Placeholder({"network", "players"})
+    @Cache(value = 1, unit = TimeUnit.HOURS, global = true)
+    public int networkPlayers() {
+        networkCalls++;
+        return 1337;
+    }
+
+    @Placeholder({"expensive", "cached"})
+    @Cache(value = 50, unit = TimeUnit.MILLISECONDS)
+    @Cost(CostClass.EXPENSIVE)
+    public String expensiveCached(PlaceholderActor actor) {
+        expensiveCalls++;
+        return "E" + expensiveCalls;
+    }
+
+    @Placeholder({"adaptive", "stable"})
+    @Cache(value = 20, unit = TimeUnit.MILLISECONDS, adaptive = true, min = 10, max = 60)
+    public String adaptiveStable(PlaceholderActor actor) {
+        return "Stable";
+    }
+
+    @Placeholder({"adaptive", "volatile"})
+    @Cache(value = 40, unit = TimeUnit.MILLISECONDS, adaptive = true, min = 10, max = 80)
+    public int adaptiveVolatile(PlaceholderActor actor) {
+        return ++volatileCalls;
+    }
+
+    @Placeholder({"top", "{int}", "name"})
+    public String topName(PlaceholderActor actor, int rank) {
+        return "Player #" + rank;
+    }
+
+    @Placeholder({"top", "{int}", "value"})
+    public int topValue(PlaceholderActor actor, int rank) {
+        return rank * 100;
+    }
+
+    @Placeholder({"top", "1", "name"})
+    public String topFirstName(PlaceholderActor actor) {
+        return "Champion";
+    }
+
+    @Placeholder({"top", "{player}", "name"})
+    public String topPlayerName(PlaceholderActor actor, String player) {
+        return "Player " + player;
+    }
+
+    @Placeholder({"scale", "{double}"})
+    public double scale(PlaceholderActor actor, double factor, @Optional(defaultParameter = "1") int amount) {
+        return factor * amount;
+    }
 }
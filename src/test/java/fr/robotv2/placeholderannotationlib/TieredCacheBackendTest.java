@@ -0,0 +1,176 @@
+package fr.robotv2.placeholderannotationlib;
+
+import fr.robotv2.placeholderannotationlib.api.PlaceholderAnnotationProcessor;
+import fr.robotv2.placeholderannotationlib.api.SharedCacheStore;
+import fr.robotv2.placeholderannotationlib.util.CompactCacheSystem;
+import fr.robotv2.placeholderannotationlib.util.InMemorySharedCacheStore;
+import fr.robotv2.placeholderannotationlib.util.TieredCacheBackend;
+import org.bukkit.OfflinePlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TieredCacheBackendTest {
+
+    private static final UUID STEVE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Test
+    public void testValuesAreSharedBetweenNodes() {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend first = new TieredCacheBackend(new CompactCacheSystem(), store);
+        TieredCacheBackend second = new TieredCacheBackend(new CompactCacheSystem(), store);
+
+        first.cache(STEVE, "title:", "★ Légende", 1, TimeUnit.MINUTES);
+        first.flush();
+        assertEquals("★ Légende", second.getCache(STEVE, "title:"));
+    }
+
+    @Test
+    public void testMissesAreNotLookedUpAgainRightAway() throws InterruptedException {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend first = new TieredCacheBackend(new CompactCacheSystem(), store);
+        TieredCacheBackend second = new TieredCacheBackend(new CompactCacheSystem(), store, 64, 50, 50, TimeUnit.MILLISECONDS, () -> false);
+
+        assertNull(second.getCache(STEVE, "title:"));
+        first.cache(STEVE, "title:", "Légende", 1, TimeUnit.MINUTES);
+        first.flush();
+        assertNull(second.getCache(STEVE, "title:"));
+
+        Thread.sleep(80);
+        assertEquals("Légende", second.getCache(STEVE, "title:"));
+    }
+
+    @Test
+    public void testMainThreadNeverWaitsForTheSharedStore() throws InterruptedException {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend first = new TieredCacheBackend(new CompactCacheSystem(), store);
+        TieredCacheBackend second = new TieredCacheBackend(new CompactCacheSystem(), store, 64, 50, 1000, TimeUnit.MILLISECONDS, () -> true);
+        first.cache(STEVE, "title:", "Légende", 1, TimeUnit.MINUTES);
+        first.flush();
+
+        // Looked up in the background, the value is there for the next lookups.
+        assertNull(second.getCache(STEVE, "title:"));
+        for (int i = 0; i < 50 && second.getCache(STEVE, "title:") == null; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("Légende", second.getCache(STEVE, "title:"));
+    }
+
+    @Test
+    public void testFailedBackgroundLookupIsNotThrown() {
+        SharedCacheStore store = new SharedCacheStore() {
+            @Override
+            public byte[] get(byte[] key) {
+                throw new IllegalStateException("Store is down");
+            }
+
+            @Override
+            public void putAll(List<Write> writes) {
+            }
+        };
+        TieredCacheBackend backend = new TieredCacheBackend(new CompactCacheSystem(), store, 64, 50, 1000, TimeUnit.MILLISECONDS,
+                () -> true, Runnable::run, Logger.getLogger("Test"));
+
+        assertNull(backend.getCache(STEVE, "title:"));
+    }
+
+    @Test
+    public void testInvalidatedValuesAreNotCopiedBack() {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend first = new TieredCacheBackend(new CompactCacheSystem(), store);
+        TieredCacheBackend second = new TieredCacheBackend(new CompactCacheSystem(), store, 64, 50, 1000, TimeUnit.MILLISECONDS, () -> false);
+
+        assertNull(second.getCache(STEVE, "title:"));
+        first.cache(STEVE, "title:", "Légende", 1, TimeUnit.MINUTES);
+        first.cache(STEVE, "rank:", "VIP", 1, TimeUnit.MINUTES);
+        first.flush();
+        first.cache(STEVE, "kills:", "30", 1, TimeUnit.MINUTES);
+
+        first.invalidate(key -> !key.equals("rank:"));
+        first.flush();
+        assertEquals(1, store.size());
+        assertNull(first.getCache(STEVE, "title:"));
+        assertEquals("VIP", second.getCache(STEVE, "rank:"));
+
+        // The miss remembered for the key is dropped too, the next value is looked up right away.
+        second.invalidate("title:"::equals);
+        first.cache(STEVE, "title:", "Héros", 1, TimeUnit.MINUTES);
+        first.flush();
+        assertEquals("Héros", second.getCache(STEVE, "title:"));
+    }
+
+    @Test
+    public void testWritesAreBatched() {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend backend = new TieredCacheBackend(new CompactCacheSystem(), store, 3, 1, TimeUnit.HOURS);
+
+        backend.cache(STEVE, "a:", "1", 1, TimeUnit.MINUTES);
+        backend.cache(STEVE, "b:", "2", 1, TimeUnit.MINUTES);
+        assertEquals(2, backend.pendingWrites());
+        assertEquals(0, store.batches());
+
+        backend.cache(STEVE, "c:", "3", 1, TimeUnit.MINUTES);
+        assertEquals(0, backend.pendingWrites());
+        assertEquals(1, store.batches());
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    public void testPendingWritesAreSentOnceDue() throws InterruptedException {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend backend = new TieredCacheBackend(new CompactCacheSystem(), store, 64, 20, TimeUnit.MILLISECONDS);
+
+        backend.cache(STEVE, "a:", "1", 1, TimeUnit.MINUTES);
+        assertEquals(0, store.batches());
+
+        // Sent without any later call to the backend.
+        Thread.sleep(80);
+        assertEquals(0, backend.pendingWrites());
+        assertEquals(1, store.batches());
+    }
+
+    @Test
+    public void testExpiredSharedValuesAreIgnored() throws InterruptedException {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend first = new TieredCacheBackend(new CompactCacheSystem(), store);
+        TieredCacheBackend second = new TieredCacheBackend(new CompactCacheSystem(), store);
+
+        first.cache(STEVE, "tps:", "20.0", 50, TimeUnit.MILLISECONDS);
+        first.flush();
+        Thread.sleep(100);
+        assertNull(second.getCache(STEVE, "tps:"));
+    }
+
+    @Test
+    public void testGlobalPlaceholderIsComputedOncePerNetwork() {
+        InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+        TieredCacheBackend firstBackend = new TieredCacheBackend(new CompactCacheSystem(), store);
+        PlaceholderAnnotationProcessor first = new PlaceholderAnnotationProcessor.Builder().cacheBackend(firstBackend).build();
+        PlaceholderAnnotationProcessor second = new PlaceholderAnnotationProcessor.Builder()
+                .cacheBackend(new TieredCacheBackend(new CompactCacheSystem(), store))
+                .build();
+        TestExpansion firstExpansion = new TestExpansion(first);
+        TestExpansion secondExpansion = new TestExpansion(second);
+
+        OfflinePlayer steve = mock(OfflinePlayer.class);
+        when(steve.getUniqueId()).thenReturn(STEVE);
+        OfflinePlayer alex = mock(OfflinePlayer.class);
+        when(alex.getUniqueId()).thenReturn(UUID.fromString("00000000-0000-0000-0000-000000000002"));
+
+        assertEquals("1337", first.process(steve, "network_players"));
+        assertEquals("1337", first.process(alex, "network_players"));
+        assertEquals("1337", first.process(null, "network_players"));
+        assertEquals(1, firstExpansion.networkCalls);
+
+        firstBackend.flush();
+        assertEquals("1337", second.process(alex, "network_players"));
+        assertEquals(0, secondExpansion.networkCalls);
+    }
+}